@@ -0,0 +1,87 @@
+package com.resumebuilder.resumebuilderapi.benchmark;
+
+import com.resumebuilder.resumebuilderapi.config.ReadinessGate;
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.repository.RevokedTokenRepository;
+import com.resumebuilder.resumebuilderapi.repository.UserRepository;
+import com.resumebuilder.resumebuilderapi.security.AuthenticatedPrincipalCache;
+import com.resumebuilder.resumebuilderapi.security.JwtAuthenticationFilter;
+import com.resumebuilder.resumebuilderapi.security.JwtKeyRing;
+import com.resumebuilder.resumebuilderapi.security.TokenRevocationService;
+import com.resumebuilder.resumebuilderapi.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/*
+This class wires the authentication components by hand, without a Spring context or a database
+Property values are injected the same way Spring would inject the @Value fields
+ */
+public final class AuthFixtures {
+
+    static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    static final long EXPIRATION_MILLIS = 3_600_000L;
+
+    private AuthFixtures() {
+    }
+
+    public static User user() {
+        return User.builder()
+                .id("65f1c0ffee0000000000beef")
+                .name("Benchmark User")
+                .email("benchmark@example.com")
+                .password("$2a$10$abcdefghijklmnopqrstuuJ7yK1Cq6zK0u1Yx3n7kVQe4lXx9a1mG")
+                .profileImageUrl("https://res.cloudinary.com/demo/image/upload/sample.jpg")
+                .subscriptionPlan("Basic")
+                .emailVerified(true)
+                .tokenVersion(0L)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    public static JwtUtil jwtUtil(String algorithm, int cacheMaxSize) {
+        JwtKeyRing keyRing = new JwtKeyRing(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(keyRing, "algorithm", algorithm);
+        ReflectionTestUtils.setField(keyRing, "keystoreLocation", "");
+        ReflectionTestUtils.setField(keyRing, "keystorePassword", "");
+        ReflectionTestUtils.setField(keyRing, "activeKid", "");
+        ReflectionTestUtils.setField(keyRing, "jwtExpiration", EXPIRATION_MILLIS);
+        // One process issues and verifies every token, so keys generated in memory are fine
+        ReflectionTestUtils.setField(keyRing, "singleNode", true);
+        ReflectionTestUtils.setField(keyRing, "jwksMaxAge", Duration.ofMinutes(15));
+        ReflectionTestUtils.invokeMethod(keyRing, "init");
+
+        JwtUtil jwtUtil = new JwtUtil(keyRing);
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", EXPIRATION_MILLIS);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "legacyHmacAcceptUntil", "");
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    static JwtAuthenticationFilter jwtAuthenticationFilter(JwtUtil jwtUtil, User user) {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findPrincipalById(user.getId())).thenReturn(Optional.of(user));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        AuthenticatedPrincipalCache principalCache = new AuthenticatedPrincipalCache(meterRegistry);
+        ReflectionTestUtils.setField(principalCache, "maxSize", 10_000);
+        ReflectionTestUtils.setField(principalCache, "ttl", Duration.ofMinutes(5));
+
+        TokenRevocationService revocationService = new TokenRevocationService(Mockito.mock(RevokedTokenRepository.class),
+                new ReadinessGate(event -> { }), meterRegistry, 100_000, 0.001);
+        // Build the (empty) filter so revocation checks take the Bloom filter path as in production
+        revocationService.initialize();
+
+        return new JwtAuthenticationFilter(jwtUtil, userRepository, principalCache, revocationService);
+    }
+}
@@ -0,0 +1,87 @@
+package com.resumebuilder.resumebuilderapi.benchmark;
+
+import com.resumebuilder.resumebuilderapi.service.EmailService;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Throughput of EmailService against a local SMTP stand-in (GreenMail), reported in messages per second
+perMessageSend is the previous behaviour: JavaMailSender.send() opens and closes a connection for every message
+pooledSendAll sends a batch over one pooled connection with EmailService.sendAll()
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class EmailThroughputBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    private LocalSmtpServer smtpServer;
+
+    private JavaMailSenderImpl mailSender;
+
+    private EmailService emailService;
+
+    private List<EmailService.OutgoingEmail> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        smtpServer = LocalSmtpServer.start();
+        mailSender = smtpServer.mailSender();
+        emailService = smtpServer.emailService(4, 1000);
+
+        batch = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new EmailService.OutgoingEmail("student" + i + "@example.com", "Verify your email",
+                    "<p>Hi student " + i + ", please confirm your email.</p>"));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void purgeMailboxes() {
+        smtpServer.purge();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        smtpServer.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void perMessageSend() throws MessagingException {
+        for (EmailService.OutgoingEmail email : batch) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            helper.setFrom(LocalSmtpServer.FROM);
+            helper.setTo(email.to());
+            helper.setSubject(email.subject());
+            helper.setText(email.htmlContent(), true);
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<EmailService.SendResult> pooledSendAll() {
+        return emailService.sendAll(batch);
+    }
+}
@@ -0,0 +1,59 @@
+package com.resumebuilder.resumebuilderapi.benchmark;
+
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.security.JwtAuthenticationFilter;
+import com.resumebuilder.resumebuilderapi.util.JwtUtil;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+Benchmark of a full pass through JwtAuthenticationFilter for an authenticated API request
+The repository is a mock, so the numbers show the CPU cost of the filter without database latency
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"0", "10000"})
+    private int cacheMaxSize;
+
+    private JwtAuthenticationFilter filter;
+
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = AuthFixtures.jwtUtil("HS256", cacheMaxSize);
+        User user = AuthFixtures.user();
+        filter = AuthFixtures.jwtAuthenticationFilter(jwtUtil, user);
+        authorizationHeader = "Bearer " + jwtUtil.genrateToken(user);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilterInternal() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/resumes");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,58 @@
+package com.resumebuilder.resumebuilderapi.benchmark;
+
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Benchmarks of token generation and verification in JwtUtil
+cacheMaxSize=0 measures a full parse and signature check on every call, 10000 measures the verified-token cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilBenchmark {
+
+    @Param({"HS256", "ES256"})
+    private String algorithm;
+
+    @Param({"0", "10000"})
+    private int cacheMaxSize;
+
+    private JwtUtil jwtUtil;
+
+    private User user;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = AuthFixtures.jwtUtil(algorithm, cacheMaxSize);
+        user = AuthFixtures.user();
+        token = jwtUtil.genrateToken(user);
+    }
+
+    @Benchmark
+    public String genrateToken() {
+        return jwtUtil.genrateToken(user);
+    }
+
+    @Benchmark
+    public String generateUserIdFromToken() {
+        return jwtUtil.generateUserIdFromToken(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+}
@@ -0,0 +1,86 @@
+package com.resumebuilder.resumebuilderapi.benchmark;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.resumebuilder.resumebuilderapi.service.EmailService;
+import com.resumebuilder.resumebuilderapi.service.SmtpTransportPool;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+/*
+An embedded SMTP server (GreenMail) standing in for the real mail server
+It accepts every message without authentication and keeps it in memory, so tests and load runs can count and inspect what was sent
+mailSender() is configured the same way Spring Boot configures JavaMailSender from spring.mail.host and spring.mail.port
+(see src/test/resources/application-localmail.properties, used by the mail integration tests, for the spring.mail.* settings)
+ */
+final class LocalSmtpServer implements AutoCloseable {
+
+    static final int DEFAULT_PORT = 3025;
+
+    static final String FROM = "noreply@resumebuilder.local";
+
+    private static final String HOST = "127.0.0.1";
+
+    private final GreenMail greenMail;
+
+    private final int port;
+
+    private LocalSmtpServer(int port) {
+        this.port = port;
+        this.greenMail = new GreenMail(new ServerSetup(port, HOST, ServerSetup.PROTOCOL_SMTP));
+    }
+
+    static LocalSmtpServer start() {
+        return start(DEFAULT_PORT);
+    }
+
+    static LocalSmtpServer start(int port) {
+        LocalSmtpServer server = new LocalSmtpServer(port);
+        server.greenMail.start();
+        return server;
+    }
+
+    // Equivalent of spring.mail.host / spring.mail.port pointing at this server
+    JavaMailSenderImpl mailSender() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(HOST);
+        mailSender.setPort(port);
+        return mailSender;
+    }
+
+    // EmailService with its own connection pool, wired the way Spring would inject the @Value fields
+    EmailService emailService(int poolSize, int maxMessagesPerConnection) {
+        JavaMailSenderImpl mailSender = mailSender();
+
+        SmtpTransportPool transportPool = new SmtpTransportPool(mailSender);
+        ReflectionTestUtils.setField(transportPool, "poolSize", poolSize);
+        ReflectionTestUtils.setField(transportPool, "maxMessagesPerConnection", maxMessagesPerConnection);
+        ReflectionTestUtils.setField(transportPool, "idleTimeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(transportPool, "borrowTimeout", Duration.ofSeconds(30));
+
+        EmailService emailService = new EmailService(mailSender, transportPool);
+        ReflectionTestUtils.setField(emailService, "fromEmail", FROM);
+        return emailService;
+    }
+
+    // Waits until at least count messages have been received in total
+    boolean awaitMessages(int count, Duration timeout) {
+        return greenMail.waitForIncomingEmail(timeout.toMillis(), count);
+    }
+
+    MimeMessage[] receivedMessages() {
+        return greenMail.getReceivedMessages();
+    }
+
+    void purge() {
+        greenMail.purgeEmailFromAllMailboxes();
+    }
+
+    @Override
+    public void close() {
+        greenMail.stop();
+    }
+}
@@ -0,0 +1,285 @@
+package com.resumebuilder.resumebuilderapi.benchmark;
+
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.resumebuilder.resumebuilderapi.document.EmailOutboxMessage;
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.dto.RegisterRequest;
+import com.resumebuilder.resumebuilderapi.repository.UserRepository;
+import com.resumebuilder.resumebuilderapi.security.AuthenticatedPrincipalCache;
+import com.resumebuilder.resumebuilderapi.security.LoginThrottle;
+import com.resumebuilder.resumebuilderapi.security.TokenRevocationService;
+import com.resumebuilder.resumebuilderapi.service.AuthService;
+import com.resumebuilder.resumebuilderapi.service.EmailOutboxService;
+import com.resumebuilder.resumebuilderapi.service.EmailService;
+import com.resumebuilder.resumebuilderapi.service.EmailTemplateEngine;
+import com.resumebuilder.resumebuilderapi.service.PasswordHashingService;
+import com.resumebuilder.resumebuilderapi.service.RefreshTokenService;
+import com.resumebuilder.resumebuilderapi.service.VerificationEmailComposer;
+import com.resumebuilder.resumebuilderapi.util.JwtUtil;
+import com.resumebuilder.resumebuilderapi.util.VerificationTokenUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Multipart;
+import jakarta.mail.internet.MimeMessage;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+End-to-end load test of the mail pipeline against the local SMTP stand-in
+Concurrent clients call AuthService.register() and resendVerification(), which render the verification template and queue the email
+Sender threads drain the queue in batches through EmailService.sendAll(), like EmailOutboxWorker does, over pooled SMTP connections
+The run fails (exit code 1) unless every registration and resend produced exactly one delivered multipart email with its link
+
+MongoDB is replaced by in-memory stand-ins (users map and outbox queue), so the numbers measure rendering, hashing and SMTP delivery
+
+Run after packaging the benchmarks module:
+  java -cp benchmarks/target/benchmarks.jar com.resumebuilder.resumebuilderapi.benchmark.MailPipelineLoadHarness \
+      --registrations=5000 --clients=32 --senders=4 --batch-size=50 --pool-size=4 --resend-percent=10
+ */
+public final class MailPipelineLoadHarness {
+
+    private static final String BASE_URL = "http://localhost:8080/";
+
+    private final int registrations;
+    private final int clients;
+    private final int senders;
+    private final int batchSize;
+    private final int poolSize;
+    private final int resendPercent;
+
+    private final BlockingQueue<EmailOutboxMessage> outbox = new LinkedBlockingQueue<>();
+
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger requestErrors = new AtomicInteger();
+
+    private MailPipelineLoadHarness(Map<String, String> options) {
+        this.registrations = intOption(options, "registrations", 2000);
+        this.clients = intOption(options, "clients", 32);
+        this.senders = intOption(options, "senders", 4);
+        this.batchSize = intOption(options, "batch-size", 50);
+        this.poolSize = intOption(options, "pool-size", 4);
+        this.resendPercent = intOption(options, "resend-percent", 10);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        boolean passed = new MailPipelineLoadHarness(options).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        try (LocalSmtpServer smtpServer = LocalSmtpServer.start()) {
+            EmailService emailService = smtpServer.emailService(poolSize, 1000);
+            AuthService authService = authService();
+
+            ExecutorService clientPool = Executors.newFixedThreadPool(clients);
+            ExecutorService senderPool = Executors.newFixedThreadPool(senders);
+            CountDownLatch requestsDone = new CountDownLatch(registrations);
+            long[] requestNanos = new long[registrations];
+            AtomicLong lastDelivery = new AtomicLong();
+
+            long startedAt = System.nanoTime();
+            for (int i = 0; i < senders; i++) {
+                senderPool.execute(() -> drain(emailService, requestsDone, lastDelivery));
+            }
+            for (int i = 0; i < registrations; i++) {
+                int index = i;
+                clientPool.execute(() -> {
+                    long requestStartedAt = System.nanoTime();
+                    try {
+                        String email = "student" + index + "@example.com";
+                        authService.register(new RegisterRequest(email, "Student " + index, "password-" + index, null));
+                        if (resendPercent > 0 && index % 100 < resendPercent) {
+                            authService.resendVerification(email);
+                        }
+                    } catch (RuntimeException e) {
+                        requestErrors.incrementAndGet();
+                    } finally {
+                        requestNanos[index] = System.nanoTime() - requestStartedAt;
+                        requestsDone.countDown();
+                    }
+                });
+            }
+
+            requestsDone.await();
+            long requestsFinishedAt = System.nanoTime();
+            senderPool.shutdown();
+            senderPool.awaitTermination(10, TimeUnit.MINUTES);
+            clientPool.shutdown();
+
+            boolean delivered = smtpServer.awaitMessages(queued.get(), Duration.ofMinutes(1));
+            return report(smtpServer, requestNanos, startedAt, requestsFinishedAt, lastDelivery.get(), delivered);
+        }
+    }
+
+    // Sender loop: same batching as EmailOutboxWorker, one sendAll() per batch over a pooled connection
+    private void drain(EmailService emailService, CountDownLatch requestsDone, AtomicLong lastDelivery) {
+        List<EmailOutboxMessage> batch = new ArrayList<>(batchSize);
+        try {
+            while (requestsDone.getCount() > 0 || !outbox.isEmpty()) {
+                EmailOutboxMessage first = outbox.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                outbox.drainTo(batch, batchSize - 1);
+
+                List<EmailService.OutgoingEmail> emails = batch.stream()
+                        .map(message -> new EmailService.OutgoingEmail(message.getTo(), message.getSubject(),
+                                message.getHtmlContent(), message.getTextContent()))
+                        .toList();
+                for (EmailService.SendResult result : emailService.sendAll(emails)) {
+                    (result.isSent() ? sent : failed).incrementAndGet();
+                }
+                lastDelivery.accumulateAndGet(System.nanoTime(), Math::max);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean report(LocalSmtpServer smtpServer, long[] requestNanos, long startedAt,
+                           long requestsFinishedAt, long lastDelivery, boolean delivered) throws Exception {
+        MimeMessage[] received = smtpServer.receivedMessages();
+        int malformed = 0;
+        for (MimeMessage message : received) {
+            if (!isVerificationEmail(message)) {
+                malformed++;
+            }
+        }
+
+        double requestSeconds = (requestsFinishedAt - startedAt) / 1e9;
+        double pipelineSeconds = (Math.max(lastDelivery, requestsFinishedAt) - startedAt) / 1e9;
+        Arrays.sort(requestNanos);
+
+        System.out.printf("registrations        %d (%d clients, %d%% also resend)%n", registrations, clients, resendPercent);
+        System.out.printf("request errors       %d%n", requestErrors.get());
+        System.out.printf("request latency      p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(requestNanos, 0.50), percentile(requestNanos, 0.99), percentile(requestNanos, 1.0));
+        System.out.printf("requests/sec         %.1f%n", registrations / requestSeconds);
+        System.out.printf("emails queued        %d%n", queued.get());
+        System.out.printf("emails sent/failed   %d / %d (%d senders, batch %d, %d SMTP connections)%n",
+                sent.get(), failed.get(), senders, batchSize, poolSize);
+        System.out.printf("emails received      %d (%d malformed)%n", received.length, malformed);
+        System.out.printf("sustained mails/sec  %.1f%n", received.length / pipelineSeconds);
+
+        boolean passed = delivered && requestErrors.get() == 0 && failed.get() == 0
+                && received.length == queued.get() && malformed == 0;
+        System.out.println(passed ? "PASSED" : "FAILED");
+        return passed;
+    }
+
+    // The registration and resend emails must carry both the plain-text and the html part, each with the link
+    private static boolean isVerificationEmail(MimeMessage message) throws Exception {
+        if (!(message.getContent() instanceof Multipart)) {
+            return false;
+        }
+        String raw = GreenMailUtil.getWholeMessage(message);
+        return "Verify your email".equals(message.getSubject())
+                && raw.contains("text/plain") && raw.contains("text/html")
+                && raw.contains("verify-email?token=");
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    /*
+    AuthService wired by hand: the user collection is a map and the outbox is the in-memory queue drained by the senders
+    Passwords are hashed with a low BCrypt cost so hashing does not hide the mail pipeline
+     */
+    private AuthService authService() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        UserRepository userRepository = Mockito.mock(UserRepository.class, Mockito.withSettings().stubOnly());
+        Mockito.when(userRepository.insert(Mockito.any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setCreatedAt(LocalDateTime.now());
+            usersByEmail.put(user.getEmail(), user);
+            return user;
+        });
+
+        EmailOutboxService emailOutboxService = Mockito.mock(EmailOutboxService.class, Mockito.withSettings().stubOnly());
+        Mockito.when(emailOutboxService.enqueue(Mockito.any(EmailOutboxMessage.class))).thenAnswer(invocation -> {
+            EmailOutboxMessage message = invocation.getArgument(0);
+            queued.incrementAndGet();
+            outbox.add(message);
+            return message;
+        });
+
+        EmailTemplateEngine emailTemplateEngine = new EmailTemplateEngine();
+        ReflectionTestUtils.invokeMethod(emailTemplateEngine, "loadTemplates");
+        VerificationEmailComposer verificationEmailComposer = new VerificationEmailComposer(emailTemplateEngine);
+        ReflectionTestUtils.setField(verificationEmailComposer, "appBaseUrl", BASE_URL);
+
+        VerificationTokenUtil verificationTokenUtil = new VerificationTokenUtil();
+        ReflectionTestUtils.setField(verificationTokenUtil, "jwtSecret", AuthFixtures.SECRET);
+        ReflectionTestUtils.invokeMethod(verificationTokenUtil, "init");
+
+        PasswordHashingService passwordHashingService = new PasswordHashingService(
+                new BCryptPasswordEncoder(4), meterRegistry, 0, Math.max(64, clients), Duration.ofSeconds(30), 1, 0);
+
+        AuthenticatedPrincipalCache principalCache = new AuthenticatedPrincipalCache(meterRegistry);
+        ReflectionTestUtils.setField(principalCache, "maxSize", 10_000);
+        ReflectionTestUtils.setField(principalCache, "ttl", Duration.ofMinutes(5));
+
+        // Resend claims the user with findAndModify, the stand-in returns the registered user (no cooldown is applied)
+        MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class, Mockito.withSettings().stubOnly());
+        Mockito.when(mongoTemplate.findAndModify(Mockito.any(Query.class), Mockito.any(Update.class),
+                        Mockito.any(FindAndModifyOptions.class), Mockito.eq(User.class)))
+                .thenAnswer(invocation -> usersByEmail.get(invocation.<Query>getArgument(0).getQueryObject().getString("email")));
+
+        AuthService authService = new AuthService(
+                userRepository,
+                emailOutboxService,
+                verificationEmailComposer,
+                passwordHashingService,
+                Mockito.mock(JwtUtil.class),
+                verificationTokenUtil,
+                mongoTemplate,
+                Mockito.mock(RefreshTokenService.class),
+                Mockito.mock(TokenRevocationService.class),
+                Mockito.mock(LoginThrottle.class),
+                principalCache,
+                meterRegistry);
+        ReflectionTestUtils.setField(authService, "resendCooldown", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(authService, "resendMinRemainingValidity", Duration.ofHours(1));
+        return authService;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,49 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.resumebuilder.resumebuilderapi.benchmark.AuthFixtures;
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.dto.AuthResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Benchmark of building the AuthResponse with AuthService.toResponse() and serializing it with Jackson
+It lives in the service package because toResponse() is package-private
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthResponseBenchmark {
+
+    private JsonMapper jsonMapper;
+
+    private User user;
+
+    private AuthResponse response;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        user = AuthFixtures.user();
+        response = AuthService.toResponse(user);
+        response.setToken(AuthFixtures.jwtUtil("HS256", 0).genrateToken(user));
+    }
+
+    @Benchmark
+    public AuthResponse toResponse() {
+        return AuthService.toResponse(user);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return jsonMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,50 @@
+package com.resumebuilder.resumebuilderapi.config;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MongoCheckoutLatencyListener records how long operations wait for a pooled MongoDB connection.
+ *
+ * <p>The Micrometer pool listener publishes the pool size and wait queue depth, but not the
+ * time a checkout takes. This listener adds the {@code mongodb.driver.pool.checkout} timer,
+ * tagged {@code outcome=success} or with the failure reason (e.g. {@code TIMEOUT} when
+ * {@code app.mongodb.pool.max-wait-time} was exceeded). A growing checkout time means the
+ * pool is too small for the load.</p>
+ */
+class MongoCheckoutLatencyListener implements ConnectionPoolListener {
+
+    private static final String METRIC = "mongodb.driver.pool.checkout";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer succeeded;
+
+    MongoCheckoutLatencyListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.succeeded = timer("success");
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        succeeded.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        timer(event.getReason().name()).record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder(METRIC)
+                .tag("outcome", outcome)
+                .description("Time spent waiting for a connection from the MongoDB pool")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -5,14 +5,51 @@ import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.connection.ConnectionPoolSettings;
+import com.resumebuilder.resumebuilderapi.document.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.MongoTemplate;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+/*
+The pool, socket and server selection settings are read from properties, with these defaults:
+app.mongodb.pool.max-size=50
+app.mongodb.pool.min-size=0
+app.mongodb.pool.max-wait-time=20s
+app.mongodb.pool.max-connection-idle-time=5m
+app.mongodb.pool.max-connection-life-time=0s (0 = connections are not closed because of their age)
+app.mongodb.pool.maintenance-frequency=1m
+app.mongodb.socket.connect-timeout=10s
+app.mongodb.socket.read-timeout=0s (0 = no timeout)
+app.mongodb.server-selection-timeout=30s
+
+The client publishes its metrics to Micrometer (Actuator):
+mongodb.driver.pool.* - pool size, checked out connections and wait queue depth
+mongodb.driver.pool.checkout - time spent waiting for a connection from the pool
+mongodb.driver.commands - duration of every command by collection and command name
+mongodb.repository.commands - duration of every command by the repository method that issued it
+
+Commands slower than app.mongodb.slow-query.threshold (default 100ms) are logged with their query plan,
+see RepositoryCommandListener
+
+The application reports readiness only once every declared index exists, see MongoIndexManager
+
+@Transactional methods run in a MongoDB transaction (MongoTransactionManager), e.g. registration writes the user
+and its verification email together; transactions need a replica set, a single node can run as a one-member replica set
+ */
 @Configuration
 @EnableMongoAuditing
 public class MongoConfig extends AbstractMongoClientConfiguration {
@@ -21,27 +58,94 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.database}")
     private String database;
 
+    @Value("${app.mongodb.pool.max-size:50}")
+    private int poolMaxSize;
+    @Value("${app.mongodb.pool.min-size:0}")
+    private int poolMinSize;
+    @Value("${app.mongodb.pool.max-wait-time:20s}")
+    private Duration poolMaxWaitTime;
+    @Value("${app.mongodb.pool.max-connection-idle-time:5m}")
+    private Duration poolMaxConnectionIdleTime;
+    @Value("${app.mongodb.pool.max-connection-life-time:0s}")
+    private Duration poolMaxConnectionLifeTime;
+    @Value("${app.mongodb.pool.maintenance-frequency:1m}")
+    private Duration poolMaintenanceFrequency;
+
+    @Value("${app.mongodb.socket.connect-timeout:10s}")
+    private Duration socketConnectTimeout;
+    @Value("${app.mongodb.socket.read-timeout:0s}")
+    private Duration socketReadTimeout;
+
+    @Value("${app.mongodb.server-selection-timeout:30s}")
+    private Duration serverSelectionTimeout;
+
+    // 0 disables the slow-query log
+    @Value("${app.mongodb.slow-query.threshold:100ms}")
+    private Duration slowQueryThreshold;
+    @Value("${app.mongodb.slow-query.explain-interval:1m}")
+    private Duration slowQueryExplainInterval;
+
+    private final MeterRegistry meterRegistry;
+
+    // Used lazily by the slow-query log to explain queries, the template itself depends on the client
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+
+    public MongoConfig(MeterRegistry meterRegistry, ObjectProvider<MongoTemplate> mongoTemplate) {
+        this.meterRegistry = meterRegistry;
+        this.mongoTemplate = mongoTemplate;
+    }
+
     @Override
     protected String getDatabaseName() {
         return database;
     }
 
+    // Register every @Document class up front rather than when its repository is created,
+    // documents without a repository (e.g. LoginAttempt) would otherwise be unknown to MongoIndexManager
+    @Override
+    protected Collection<String> getMappingBasePackages() {
+        return List.of(User.class.getPackageName());
+    }
+
+    // The indexes declared with @Indexed on the documents are created and verified in the background
+    // by MongoIndexManager, so a long index build does not block startup
+    @Override
+    protected boolean autoIndexCreation() {
+        return false;
+    }
+
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+
     @Bean
     @Override
     public MongoClient mongoClient() {
         final ConnectionString connectionString = new ConnectionString(uri);
         final MongoClientSettings.Builder mongoClientSettings = MongoClientSettings.builder().applyConnectionString(connectionString)
-                .applyToConnectionPoolSettings(builder -> builder.applySettings(connectionPoolSettings()));
+                .applyToConnectionPoolSettings(builder -> builder.applySettings(connectionPoolSettings()))
+                .applyToSocketSettings(builder -> builder
+                        .connectTimeout(socketConnectTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout(socketReadTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(builder -> builder
+                        .serverSelectionTimeout(serverSelectionTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                .addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                .addCommandListener(new RepositoryCommandListener(meterRegistry, mongoTemplate,
+                        slowQueryThreshold, slowQueryExplainInterval));
         return MongoClients.create(mongoClientSettings.build());
     }
 
-
-
     private ConnectionPoolSettings connectionPoolSettings() {
         return ConnectionPoolSettings.builder()
-                .maxSize(50)
-                .maxWaitTime(20, TimeUnit.SECONDS)
-                .maxConnectionIdleTime(20, TimeUnit.SECONDS)
-                .maxConnectionLifeTime(60, TimeUnit.SECONDS).build();
+                .maxSize(poolMaxSize)
+                .minSize(poolMinSize)
+                .maxWaitTime(poolMaxWaitTime.toMillis(), TimeUnit.MILLISECONDS)
+                .maxConnectionIdleTime(poolMaxConnectionIdleTime.toMillis(), TimeUnit.MILLISECONDS)
+                .maxConnectionLifeTime(poolMaxConnectionLifeTime.toMillis(), TimeUnit.MILLISECONDS)
+                .maintenanceFrequency(poolMaintenanceFrequency.toMillis(), TimeUnit.MILLISECONDS)
+                .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry))
+                .addConnectionPoolListener(new MongoCheckoutLatencyListener(meterRegistry))
+                .build();
     }
-}
\ No newline at end of file
+}
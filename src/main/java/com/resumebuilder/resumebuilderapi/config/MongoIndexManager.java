@@ -0,0 +1,228 @@
+package com.resumebuilder.resumebuilderapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * MongoIndexManager creates the indexes declared on the documents and keeps the application
+ * out of the load balancer until they exist.
+ *
+ * <p>The required indexes are resolved from the {@code @Indexed} and {@code @CompoundIndex}
+ * annotations of every {@code @Document} class (for example the unique {@code email}, the
+ * sparse {@code verificationToken} and the {@code createdAt} index of {@code User}), so the
+ * documents stay the single place where indexes are declared.</p>
+ *
+ * <ul>
+ *     <li>Once the application has started, the indexes are created on a background thread.
+ *     Existing indexes are left alone, so on an existing database this only verifies them.</li>
+ *     <li>Each required index is then looked up in the live collection by its keys and its
+ *     unique, sparse and TTL options. Until all of them are found the {@link ReadinessGate}
+ *     refuses traffic and the {@code mongoIndexes} health indicator
+ *     reports the missing indexes.</li>
+ *     <li>The check is repeated every {@code app.mongodb.indexes.verify-interval}, so an index
+ *     dropped by hand also takes the instance out of rotation instead of silently turning its
+ *     queries into collection scans.</li>
+ * </ul>
+ */
+@Component("mongoIndexes")
+@Slf4j
+public class MongoIndexManager implements HealthIndicator {
+
+    /**
+     * An index required by a document.
+     *
+     * @param collection the collection holding the index
+     * @param type       the document class
+     * @param definition the index as declared on the document
+     */
+    private record RequiredIndex(String collection, Class<?> type, IndexDefinition definition) {
+
+        List<String> keys() {
+            return new ArrayList<>(definition.getIndexKeys().keySet());
+        }
+
+        boolean option(String name) {
+            return Boolean.TRUE.equals(definition.getIndexOptions().get(name));
+        }
+
+        // TTL of the index in seconds, null when documents do not expire
+        Long expireAfterSeconds() {
+            return definition.getIndexOptions().get("expireAfterSeconds") instanceof Number seconds
+                    ? seconds.longValue()
+                    : null;
+        }
+
+        @Override
+        public String toString() {
+            Long ttl = expireAfterSeconds();
+            return collection + definition.getIndexKeys().toJson()
+                    + (option("unique") ? " unique" : "")
+                    + (option("sparse") ? " sparse" : "")
+                    + (ttl != null ? " ttl=" + ttl + "s" : "");
+        }
+    }
+
+    private static final String GATE = "MongoDB indexes";
+
+    // Set to false to only verify, when indexes are managed outside of the application
+    @Value("${app.mongodb.indexes.create:true}")
+    private boolean createIndexes;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ReadinessGate readinessGate;
+
+    // Resolved when the bootstrap runs, null until then
+    private volatile List<RequiredIndex> requiredIndexes;
+
+    // null until the first verification has completed
+    private volatile List<RequiredIndex> missing;
+
+    public MongoIndexManager(MongoTemplate mongoTemplate, ReadinessGate readinessGate) {
+        this.mongoTemplate = mongoTemplate;
+        this.readinessGate = readinessGate;
+        readinessGate.block(GATE, "indexes not verified yet");
+    }
+
+    /**
+     * Creates and verifies the indexes in the background, so a long index build on a large
+     * collection does not delay startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        Thread thread = new Thread(() -> {
+            List<RequiredIndex> required = resolveRequiredIndexes(mongoTemplate);
+            if (createIndexes) {
+                createIndexes(required);
+            }
+            requiredIndexes = required;
+            verify();
+        }, "mongo-index-bootstrap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Looks up every required index in the live collections and updates the readiness gate.
+     */
+    @Scheduled(fixedDelayString = "${app.mongodb.indexes.verify-interval:PT5M}",
+            initialDelayString = "${app.mongodb.indexes.verify-interval:PT5M}")
+    public void verify() {
+        List<RequiredIndex> required = requiredIndexes;
+        if (required == null) {
+            // Not resolved yet, the bootstrap verifies as soon as it has resolved the indexes
+            return;
+        }
+        List<RequiredIndex> found;
+        try {
+            found = findMissing(required);
+        } catch (RuntimeException e) {
+            // Keep the last result, an unreachable database is reported by the mongo health indicator
+            log.warn("Could not verify MongoDB indexes: {}", e.getMessage());
+            return;
+        }
+        List<RequiredIndex> previous = missing;
+        missing = found;
+
+        if (found.isEmpty()) {
+            if (previous == null || !previous.isEmpty()) {
+                log.info("All {} required MongoDB indexes are present", required.size());
+            }
+            readinessGate.release(GATE);
+        } else {
+            log.error("Required MongoDB indexes are missing: {}", found);
+            readinessGate.block(GATE, found.size() + " required indexes missing");
+        }
+    }
+
+    @Override
+    public Health health() {
+        List<RequiredIndex> required = requiredIndexes;
+        List<RequiredIndex> current = missing;
+        if (required == null || current == null) {
+            return Health.unknown().build();
+        }
+        if (!current.isEmpty()) {
+            return Health.down()
+                    .withDetail("required", required.size())
+                    .withDetail("missing", current.stream().map(RequiredIndex::toString).toList())
+                    .build();
+        }
+        return Health.up().withDetail("required", required.size()).build();
+    }
+
+    private void createIndexes(List<RequiredIndex> required) {
+        for (RequiredIndex index : required) {
+            try {
+                mongoTemplate.indexOps(index.type()).createIndex(index.definition());
+            } catch (RuntimeException e) {
+                // e.g. duplicate values for a unique index, or the same keys indexed under another name;
+                // the verification below decides whether the collection is usable
+                log.error("Could not create MongoDB index {}: {}", index, e.getMessage());
+            }
+        }
+    }
+
+    private List<RequiredIndex> findMissing(List<RequiredIndex> required) {
+        List<RequiredIndex> notFound = new ArrayList<>();
+        for (RequiredIndex index : required) {
+            IndexOperations indexOps = mongoTemplate.indexOps(index.type());
+            boolean present = indexOps.getIndexInfo().stream().anyMatch(existing -> matches(index, existing));
+            if (!present) {
+                notFound.add(index);
+            }
+        }
+        return notFound;
+    }
+
+    // Matched by keys and options rather than by name, an index created by hand under another name counts
+    private static boolean matches(RequiredIndex index, IndexInfo existing) {
+        List<String> keys = existing.getIndexFields().stream().map(IndexField::getKey).toList();
+        // A plain index on a TTL field would serve the queries but never remove the expired documents
+        Long ttl = existing.getExpireAfter().map(Duration::getSeconds).orElse(null);
+        return keys.equals(index.keys())
+                && existing.isUnique() == index.option("unique")
+                && existing.isSparse() == index.option("sparse")
+                && Objects.equals(ttl, index.expireAfterSeconds());
+    }
+
+    /*
+    The mapping context knows every @Document class from the start because MongoConfig scans the document
+    package (getMappingBasePackages), documents without a repository such as LoginAttempt included
+     */
+    private static List<RequiredIndex> resolveRequiredIndexes(MongoTemplate mongoTemplate) {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        List<RequiredIndex> indexes = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mongoTemplate.getConverter().getMappingContext().getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity.getType())) {
+                indexes.add(new RequiredIndex(entity.getCollection(), entity.getType(), definition));
+            }
+        }
+        indexes.sort(Comparator.comparing(RequiredIndex::toString));
+        return List.copyOf(indexes);
+    }
+}
@@ -0,0 +1,83 @@
+package com.resumebuilder.resumebuilderapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReadinessGate keeps the application out of the load balancer while a component that
+ * requests depend on is not usable yet.
+ *
+ * <p>Components {@linkplain #block(String, String) block} the gate with their name and a
+ * reason, usually from their constructor, and {@linkplain #release(String) release} it once
+ * their startup work has succeeded. While at least one component blocks, the readiness state
+ * is {@link ReadinessState#REFUSING_TRAFFIC}; the {@code ACCEPTING_TRAFFIC} state Spring Boot
+ * publishes after startup is overridden until the last component has released the gate.</p>
+ *
+ * <p>A component can block the gate again later, for example when a periodic check fails.</p>
+ */
+@Component
+@Slf4j
+public class ReadinessGate {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, String> blockers = new ConcurrentHashMap<>();
+
+    public ReadinessGate(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Refuses traffic until the component releases the gate.
+     *
+     * @param component the blocking component
+     * @param reason    why it is not ready, reported in the log
+     */
+    public void block(String component, String reason) {
+        if (blockers.put(component, reason) == null) {
+            log.info("{} is not ready, refusing traffic: {}", component, reason);
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+    }
+
+    /**
+     * Releases the gate for the component, traffic is accepted once no component blocks it.
+     *
+     * @param component the component that is now ready
+     */
+    public void release(String component) {
+        if (blockers.remove(component) == null) {
+            return;
+        }
+        log.info("{} is ready", component);
+        if (blockers.isEmpty()) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    /**
+     * Returns whether no component blocks the gate.
+     *
+     * @return true if traffic may be accepted
+     */
+    public boolean isOpen() {
+        return blockers.isEmpty();
+    }
+
+    /**
+     * Refuses traffic again when the application is reported ready while components still block the gate.
+     */
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !blockers.isEmpty()) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+}
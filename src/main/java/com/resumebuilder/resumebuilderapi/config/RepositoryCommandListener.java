@@ -0,0 +1,273 @@
+package com.resumebuilder.resumebuilderapi.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RepositoryCommandListener attributes MongoDB commands to the repository method that issued
+ * them, records their latency and logs slow commands together with their query plan.
+ *
+ * <ul>
+ *     <li>Every command is timed in {@code mongodb.repository.commands}, a histogram tagged
+ *     with the repository method (e.g. {@code UserRepository.findByEmail}, or {@code other}
+ *     for direct {@link MongoTemplate} calls), the command name and the outcome.</li>
+ *     <li>Commands slower than {@code app.mongodb.slow-query.threshold} are counted in
+ *     {@code mongodb.repository.slow} and logged. Queries are then explained in the
+ *     background and the winning plan is logged as a stage summary such as
+ *     {@code FETCH > IXSCAN(email)} or {@code COLLSCAN}. Plans with a collection scan are
+ *     counted in {@code mongodb.repository.slow.collscan}, which makes a dropped or unused
+ *     index visible.</li>
+ * </ul>
+ *
+ * <p>Each method and command is explained at most once per
+ * {@code app.mongodb.slow-query.explain-interval}, on a single background thread, so a burst
+ * of slow queries does not add load to the database.</p>
+ *
+ * <p>A command is held in memory from its start event until its completion event. Commands
+ * whose completion is never reported, for example because the connection was closed while
+ * they were running, are dropped once they are older than ten minutes, and no more than
+ * 10,000 commands are held at a time; commands started beyond that limit are
+ * not attributed to a repository method.</p>
+ */
+@Slf4j
+class RepositoryCommandListener implements CommandListener {
+
+    private static final String OTHER = "other";
+
+    private static final Set<String> EXPLAINABLE =
+            Set.of("find", "aggregate", "count", "distinct", "findAndModify", "update", "delete");
+
+    // Driver-added fields that explain does not accept inside the explained command
+    private static final Set<String> SESSION_FIELDS = Set.of("$db", "lsid", "$clusterTime", "txnNumber",
+            "$readPreference", "autocommit", "startTransaction", "apiVersion", "apiStrict", "apiDeprecationErrors");
+
+    // A pool of a few dozen connections never has this many commands in flight
+    private static final int MAX_STARTED = 10_000;
+
+    private static final long STALE_AFTER_NANOS = Duration.ofMinutes(10).toNanos();
+
+    // Stale commands are looked for at most once per interval, from commandStarted
+    private static final long SWEEP_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private final MeterRegistry meterRegistry;
+
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+
+    private final long slowThresholdNanos;
+
+    private final long explainIntervalNanos;
+
+    private final Map<Integer, StartedCommand> started = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+    private final ThreadPoolExecutor explainer;
+
+    /**
+     * A command between its start and completion events.
+     *
+     * @param method     the repository method that issued the command
+     * @param collection the target collection, if any
+     * @param command    a copy of the command, kept only for commands that can be explained
+     * @param startedAt  when the start event was received, in {@link System#nanoTime()} units
+     */
+    private record StartedCommand(String method, String collection, BsonDocument command, long startedAt) {
+    }
+
+    RepositoryCommandListener(MeterRegistry meterRegistry,
+                              ObjectProvider<MongoTemplate> mongoTemplate,
+                              Duration slowThreshold,
+                              Duration explainInterval) {
+        this.meterRegistry = meterRegistry;
+        this.mongoTemplate = mongoTemplate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.explainIntervalNanos = explainInterval.toNanos();
+        this.explainer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mongo-slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        long now = System.nanoTime();
+        removeStale(now);
+        if (started.size() >= MAX_STARTED) {
+            return;
+        }
+        String method = RepositoryMethodContext.current();
+        BsonValue target = event.getCommand().get(event.getCommandName());
+        String collection = target != null && target.isString() ? target.asString().getValue() : null;
+        // The command document is only valid during this callback, copy it if it may have to be explained
+        BsonDocument command = slowThresholdNanos > 0 && EXPLAINABLE.contains(event.getCommandName())
+                ? event.getCommand().clone()
+                : null;
+        started.put(event.getRequestId(), new StartedCommand(method != null ? method : OTHER, collection, command, now));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        completed(event.getRequestId(), event.getCommandName(), "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        completed(event.getRequestId(), event.getCommandName(), "failure", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void completed(int requestId, String commandName, String outcome, long elapsedNanos) {
+        StartedCommand command = started.remove(requestId);
+        if (command == null) {
+            return;
+        }
+        timer(command.method(), commandName, outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (slowThresholdNanos <= 0 || elapsedNanos < slowThresholdNanos) {
+            return;
+        }
+        Counter.builder("mongodb.repository.slow")
+                .tag("method", command.method())
+                .tag("command", commandName)
+                .description("MongoDB commands slower than the slow-query threshold")
+                .register(meterRegistry)
+                .increment();
+        log.warn("Slow MongoDB command: {} on {} from {} took {} ms",
+                commandName, command.collection(), command.method(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        if (command.command() != null && shouldExplain(command.method() + "." + commandName)) {
+            explainer.execute(() -> explain(command, commandName));
+        }
+    }
+
+    // Drops commands that were started long ago and whose completion was never reported
+    private void removeStale(long now) {
+        long last = lastSweepNanos.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweepNanos.compareAndSet(last, now)) {
+            return;
+        }
+        int before = started.size();
+        started.values().removeIf(command -> now - command.startedAt() > STALE_AFTER_NANOS);
+        int removed = before - started.size();
+        if (removed > 0) {
+            log.debug("Dropped {} MongoDB commands that never reported completion", removed);
+        }
+    }
+
+    private Timer timer(String method, String commandName, String outcome) {
+        return timers.computeIfAbsent(method + "|" + commandName + "|" + outcome, key -> Timer.builder("mongodb.repository.commands")
+                .tag("method", method)
+                .tag("command", commandName)
+                .tag("outcome", outcome)
+                .description("Duration of MongoDB commands by originating repository method")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    // At most one explain per method and command per explain interval
+    private boolean shouldExplain(String key) {
+        long now = System.nanoTime();
+        Long previous = lastExplained.get(key);
+        if (previous != null && now - previous < explainIntervalNanos) {
+            return false;
+        }
+        return previous == null
+                ? lastExplained.putIfAbsent(key, now) == null
+                : lastExplained.replace(key, previous, now);
+    }
+
+    private void explain(StartedCommand command, String commandName) {
+        try {
+            BsonDocument explained = new BsonDocument();
+            command.command().forEach((field, value) -> {
+                if (!SESSION_FIELDS.contains(field)) {
+                    explained.append(field, value);
+                }
+            });
+            Document result = mongoTemplate.getObject().getDb().runCommand(new BsonDocument("explain", explained)
+                    .append("verbosity", new BsonString("queryPlanner")));
+
+            String plan = summarizePlan(result);
+            if (plan.contains("COLLSCAN")) {
+                Counter.builder("mongodb.repository.slow.collscan")
+                        .tag("method", command.method())
+                        .description("Slow MongoDB queries whose plan scans the whole collection")
+                        .register(meterRegistry)
+                        .increment();
+            }
+            log.warn("Plan of slow MongoDB command: {} on {} from {}: {}",
+                    commandName, command.collection(), command.method(), plan);
+        } catch (RuntimeException e) {
+            log.debug("Could not explain slow {} from {}: {}", commandName, command.method(), e.getMessage());
+        }
+    }
+
+    /**
+     * Summarizes the winning plan of an explain result as its stages from the root down,
+     * e.g. {@code FETCH > IXSCAN(email)}.
+     */
+    private static String summarizePlan(Document explain) {
+        Document planner = explain.get("queryPlanner", Document.class);
+        // Aggregations report the plan of their first stage under $cursor
+        if (planner == null && explain.get("stages") instanceof List<?> stages && !stages.isEmpty()
+                && stages.get(0) instanceof Document first && first.get("$cursor") instanceof Document cursor) {
+            planner = cursor.get("queryPlanner", Document.class);
+        }
+        if (planner == null || !(planner.get("winningPlan") instanceof Document plan)) {
+            return "unknown";
+        }
+        // Plans of the slot based engine wrap the classic plan in queryPlan
+        if (plan.get("queryPlan") instanceof Document queryPlan) {
+            plan = queryPlan;
+        }
+        List<String> stages = new ArrayList<>();
+        collectStages(plan, stages);
+        return String.join(" > ", stages);
+    }
+
+    private static void collectStages(Document stage, List<String> stages) {
+        String name = stage.getString("stage");
+        Object keyPattern = stage.get("keyPattern");
+        stages.add(keyPattern instanceof Document index ? name + "(" + String.join(",", index.keySet()) + ")" : name);
+        if (stage.get("inputStage") instanceof Document input) {
+            collectStages(input, stages);
+        }
+        if (stage.get("inputStages") instanceof List<?> inputs) {
+            for (Object input : inputs) {
+                if (input instanceof Document document) {
+                    collectStages(document, stages);
+                }
+            }
+        }
+    }
+}
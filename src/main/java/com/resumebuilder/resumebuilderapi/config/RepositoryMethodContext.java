@@ -0,0 +1,51 @@
+package com.resumebuilder.resumebuilderapi.config;
+
+/**
+ * RepositoryMethodContext remembers which repository method the current thread is executing.
+ *
+ * <p>It is set by {@link RepositoryMethodTracing} around every repository call and read by
+ * {@link RepositoryCommandListener}, which runs on the same thread when the synchronous
+ * driver sends the command, to attribute the command to the method (for example
+ * {@code UserRepository.findByEmail}).</p>
+ */
+final class RepositoryMethodContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    /**
+     * Returns the repository method running on this thread.
+     *
+     * @return the method name, or null outside of a repository call
+     */
+    static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Marks the start of a repository call.
+     *
+     * @param method the repository method, e.g. {@code UserRepository.findByEmail}
+     * @return the previous value, to be passed to {@link #restore(String)}
+     */
+    static String enter(String method) {
+        String previous = CURRENT.get();
+        CURRENT.set(method);
+        return previous;
+    }
+
+    /**
+     * Marks the end of a repository call, restoring the value seen by {@link #enter(String)}.
+     *
+     * @param previous the value returned by {@link #enter(String)}
+     */
+    static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.resumebuilder.resumebuilderapi.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * RepositoryMethodTracing wraps every Spring Data repository with an interceptor that records
+ * the running repository method in {@link RepositoryMethodContext}.
+ *
+ * <p>The interceptor is added to the repository proxies when their factory beans are
+ * initialized, so repositories need no changes and the MongoDB command metrics and slow-query
+ * log can name the method that issued each command.</p>
+ */
+@Component
+class RepositoryMethodTracing implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                            interceptor(repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private static MethodInterceptor interceptor(String repositoryName) {
+        return invocation -> {
+            String previous = RepositoryMethodContext.enter(repositoryName + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                RepositoryMethodContext.restore(previous);
+            }
+        };
+    }
+}
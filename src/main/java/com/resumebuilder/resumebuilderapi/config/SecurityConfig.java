@@ -1,14 +1,18 @@
 package com.resumebuilder.resumebuilderapi.config;
 
+import com.resumebuilder.resumebuilderapi.security.BCryptCostCalibrator;
 import com.resumebuilder.resumebuilderapi.security.JwtAuthenticationEntryPoint;
 import com.resumebuilder.resumebuilderapi.security.JwtAuthenticationFilter;
+import com.resumebuilder.resumebuilderapi.util.AppConstants;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -16,7 +20,9 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Map;
 
 /**
  * SecurityConfig is the main Spring Security configuration class for the ResumeBuilder API.
@@ -28,7 +34,7 @@ import java.util.Arrays;
  *     <li>Stateless session management</li>
  *     <li>Public and protected API endpoints</li>
  *     <li>CORS configuration for frontend communication</li>
- *     <li>Password encryption using BCrypt</li>
+ *     <li>Password encryption using BCrypt, with the cost calibrated at startup</li>
  * </ul>
  *
  * <p>It ensures that only authenticated users can access protected endpoints,
@@ -56,11 +62,41 @@ public class SecurityConfig {
      * <p>BCrypt is a strong password hashing function that helps secure user passwords
      * by encrypting them before saving into the database.</p>
      *
+     * <p>The encoder is a {@link DelegatingPasswordEncoder}, so new hashes are stored with an
+     * algorithm prefix such as {@code {bcrypt}}. Hashes without a prefix (created before this
+     * change) are still matched with a default BCrypt encoder, and
+     * {@link PasswordEncoder#upgradeEncoding(String)} reports them as outdated so they are
+     * rehashed at the next login.</p>
+     *
+     * <p>Unless a fixed strength is configured, the BCrypt work factor is calibrated at startup
+     * so that one hash takes about {@code security.password.bcrypt.target-latency} on the
+     * current hardware. Calibration can pick different strengths on different machines, so
+     * when several instances run behind a load balancer the strength should be pinned:</p>
+     * <pre>
+     * security.password.bcrypt.strength=12
+     * </pre>
+     *
+     * @param strength           fixed BCrypt strength, or 0 to calibrate
+     * @param targetLatency      the desired time for hashing one password when calibrating
+     * @param minStrength        the lowest strength calibration may pick
+     * @param maxStrength        the highest strength calibration may pick
+     * @param calibrationSamples the number of hashes timed per strength when calibrating
      * @return a BCrypt-based PasswordEncoder instance
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt.strength:0}") int strength,
+                                           @Value("${security.password.bcrypt.target-latency:250ms}") Duration targetLatency,
+                                           @Value("${security.password.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${security.password.bcrypt.max-strength:16}") int maxStrength,
+                                           @Value("${security.password.bcrypt.calibration-samples:5}") int calibrationSamples) {
+        int bcryptStrength = strength > 0
+                ? strength
+                : BCryptCostCalibrator.calibrate(targetLatency, minStrength, maxStrength, calibrationSamples);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(
+                "bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(bcryptStrength)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
 
     /**
@@ -72,7 +108,7 @@ public class SecurityConfig {
      * <ul>
      *     <li>Enables CORS using a custom CorsConfigurationSource</li>
      *     <li>Disables CSRF protection because the application uses JWT (stateless authentication)</li>
-     *     <li>Allows public access to authentication endpoints</li>
+     *     <li>Allows public access to the routes in {@link AppConstants#PUBLIC_ROUTES}</li>
      *     <li>Requires authentication for all other endpoints</li>
      *     <li>Configures stateless session management</li>
      *     <li>Adds JwtAuthenticationFilter before UsernamePasswordAuthenticationFilter</li>
@@ -89,14 +125,7 @@ public class SecurityConfig {
         http.cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(
-                                "/api/auth/register",
-                                "/api/auth/login",
-                                "/api/auth/verify-email",
-                                "/api/auth/upload-image",
-                                "/api/auth/resend-verification",
-                                "/actuator/**"
-                        )
+                        .requestMatchers(AppConstants.PUBLIC_ROUTES)
                         .permitAll()
                         .anyRequest()
                         .authenticated()
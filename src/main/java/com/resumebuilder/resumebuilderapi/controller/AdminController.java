@@ -0,0 +1,46 @@
+package com.resumebuilder.resumebuilderapi.controller;
+
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.document.UserImportJob;
+import com.resumebuilder.resumebuilderapi.service.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+
+import static com.resumebuilder.resumebuilderapi.util.AppConstants.*;
+
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+@RequestMapping(ADMIN_CONTROLLER)
+public class AdminController {
+
+    private final UserImportService userImportService;
+
+    // The body is sent as application/x-ndjson or text/csv, the import runs in the background
+    @PostMapping(value = IMPORT_USERS, consumes = {UserImportService.NDJSON, UserImportService.CSV})
+    public ResponseEntity<?> importUsers(@AuthenticationPrincipal User user,
+                                         @RequestParam(defaultValue = "true") boolean sendVerificationEmails,
+                                         HttpServletRequest httpRequest) throws IOException {
+        log.info("Inside AdminController - importUsers()");
+        userImportService.requireAdmin(user);
+        UserImportJob job = userImportService.submit(httpRequest.getInputStream(),
+                httpRequest.getContentType(), sendVerificationEmails, user.getId());
+        // Point the caller to the job, it is polled until it is COMPLETED or FAILED
+        URI status = ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{jobId}").buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted().location(status).body(job);
+    }
+
+    @GetMapping(IMPORT_USERS_JOB)
+    public ResponseEntity<?> getImportJob(@AuthenticationPrincipal User user, @PathVariable String jobId) {
+        userImportService.requireAdmin(user);
+        return ResponseEntity.ok(userImportService.getJob(jobId));
+    }
+}
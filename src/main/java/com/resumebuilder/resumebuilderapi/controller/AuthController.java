@@ -1,15 +1,20 @@
 package com.resumebuilder.resumebuilderapi.controller;
 
+import com.resumebuilder.resumebuilderapi.document.User;
 import com.resumebuilder.resumebuilderapi.dto.AuthResponse;
 import com.resumebuilder.resumebuilderapi.dto.LoginRequest;
+import com.resumebuilder.resumebuilderapi.dto.RefreshTokenRequest;
 import com.resumebuilder.resumebuilderapi.dto.RegisterRequest;
+import com.resumebuilder.resumebuilderapi.security.ClientIpResolver;
 import com.resumebuilder.resumebuilderapi.service.AuthService;
 import com.resumebuilder.resumebuilderapi.service.FileUploadService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -29,6 +34,9 @@ public class AuthController {
 
     private final FileUploadService fileUploadService;
 
+    // The caller's address as reported by a trusted load balancer, used for the per-IP login limit
+    private final ClientIpResolver clientIpResolver;
+
     @PostMapping(REGISTER)
     public ResponseEntity<?> register (@Valid @RequestBody RegisterRequest request) {
         log.info("Inside AuthController - register(): {}", request);
@@ -52,11 +60,34 @@ public class AuthController {
     }
 
     @PostMapping(LOGIN)
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
-        AuthResponse response = authService.login(request);
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        AuthResponse response = authService.login(request, clientIpResolver.resolve(httpRequest));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping(REFRESH)
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        AuthResponse response = authService.refresh(request.getRefreshToken());
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(LOGOUT)
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader,
+                                    @RequestBody(required = false) Map<String, String> body) {
+        // Step1: Get the access token from the header and the optional refresh token from the body
+        String accessToken = authHeader.startsWith("Bearer") ? authHeader.substring(7) : authHeader;
+        String refreshToken = body != null ? body.get("refreshToken") : null;
+        // Step2: Revoke both tokens
+        authService.logout(accessToken, refreshToken);
+        return ResponseEntity.ok(Map.of("success", true, "message", "logged out"));
+    }
+
+    @PostMapping(LOGOUT_ALL)
+    public ResponseEntity<?> logoutAll(@AuthenticationPrincipal User user) {
+        authService.logoutAll(user.getId());
+        return ResponseEntity.ok(Map.of("success", true, "message", "logged out from all sessions"));
+    }
+
     @PostMapping(RESEND_VERIFICATION)
     public ResponseEntity<?> resendVerification(@RequestBody Map<String, String> body) {
         // Step1: Get the email from request
@@ -0,0 +1,31 @@
+package com.resumebuilder.resumebuilderapi.controller;
+
+import com.resumebuilder.resumebuilderapi.security.JwtKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+import static com.resumebuilder.resumebuilderapi.util.AppConstants.JWKS;
+
+/*
+This controller publishes the public JWT verification keys as a JSON Web Key Set
+Downstream services (PDF renderer, analytics) fetch and cache this document to verify our tokens
+The cache max-age comes from the key ring, which waits that long before a newly published key starts signing
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    @GetMapping(JWKS)
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(keyRing.jwksMaxAge()).cachePublic())
+                .body(keyRing.jwks());
+    }
+}
@@ -0,0 +1,66 @@
+package com.resumebuilder.resumebuilderapi.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*
+This document is an email waiting to be sent by the background outbox worker
+Requests only insert the message, so their latency does not depend on the mail server
+status moves PENDING -> SENDING -> SENT, or back to PENDING with a later nextAttemptAt on failure,
+and to DEAD once the maximum number of attempts is reached
+attempts counts claims, so a message whose worker died or hung while sending also runs out of attempts
+Sent and dead messages are removed by Mongo once purgeAt has passed (TTL index)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document (collection = "email_outbox")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class EmailOutboxMessage {
+
+    public static final String PENDING = "PENDING";
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+    public static final String DEAD = "DEAD";
+
+    private String id;
+    private String to;
+    private String subject;
+    private String htmlContent;
+
+    // Plain-text alternative of htmlContent, null for html-only emails
+    private String textContent;
+
+    @Builder.Default
+    private String status = PENDING;
+
+    @Builder.Default
+    private Integer attempts = 0;
+
+    private LocalDateTime nextAttemptAt;
+
+    // A SENDING message whose lock has expired was claimed by a worker that died, it is claimed again
+    private LocalDateTime lockedUntil;
+
+    // Random id of the batch that claimed the message, the worker reads its batch back by it
+    @Indexed(sparse = true)
+    private String claimId;
+
+    private String lastError;
+    private LocalDateTime sentAt;
+
+    @Indexed(expireAfter = "0s")
+    private LocalDateTime purgeAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+}
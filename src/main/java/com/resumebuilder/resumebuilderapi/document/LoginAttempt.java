@@ -0,0 +1,28 @@
+package com.resumebuilder.resumebuilderapi.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*
+This document is a shared login attempt counter, used when login throttling runs across several nodes
+The id is the throttle key (email or ip) plus the start of the fixed time window
+Mongo removes the counter once its window has ended (TTL index on expiresAt)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document (collection = "login_attempt")
+public class LoginAttempt {
+    private String id;
+    private Long count;
+
+    @Indexed(expireAfter = "0s")
+    private LocalDateTime expiresAt;
+}
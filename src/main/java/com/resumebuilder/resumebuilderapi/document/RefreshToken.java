@@ -0,0 +1,47 @@
+package com.resumebuilder.resumebuilderapi.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*
+This document stores the refresh tokens issued at login
+Only the SHA-256 hash of the token is stored, never the token itself
+All tokens created by rotating the same login share a familyId, so reuse of an old token revokes the whole family
+Mongo removes the document automatically once expiresAt has passed (TTL index)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document (collection = "refresh_token")
+public class RefreshToken {
+    private String id;
+
+    @Indexed(unique = true)
+    private String tokenHash;
+
+    @Indexed
+    private String userId;
+
+    @Indexed
+    private String familyId;
+
+    // Token version of the user when this token was issued, a later bump rejects the token
+    private Long tokenVersion;
+
+    @Builder.Default
+    private Boolean used = false;
+
+    @Indexed(expireAfter = "0s")
+    private LocalDateTime expiresAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,32 @@
+package com.resumebuilder.resumebuilderapi.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*
+This document is the deny list of access tokens revoked before their expiry (e.g. on logout)
+The id is the token's jti claim
+Mongo removes the entry once the token would have expired anyway (TTL index on expiresAt)
+revokedAt is indexed so every node can pick up new entries incrementally
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document (collection = "revoked_token")
+public class RevokedToken {
+    private String id;
+    private String userId;
+
+    @Indexed
+    private LocalDateTime revokedAt;
+
+    @Indexed(expireAfter = "0s")
+    private LocalDateTime expiresAt;
+}
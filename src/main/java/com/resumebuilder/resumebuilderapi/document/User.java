@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -18,14 +19,30 @@ import java.time.LocalDateTime;
 public class User {
     private String id;
     private String name;
+    @Indexed(unique = true)
     private String email;
     private String password;
     private String profileImageUrl;
     private String subscriptionPlan = "basic";
     private Boolean emailVerified = false;
+
+    // Sparse: verified users have no token, so only pending verifications are in the index
+    @Indexed(unique = true, sparse = true)
     private String verificationToken;
+
+    // Used by the purge of abandoned sign-ups
+    @Indexed
     private LocalDateTime verificationExpires;
 
+    // When the last verification email was queued, enforces the resend cooldown
+    private LocalDateTime lastVerificationSentAt;
+
+    // Bumped whenever previously issued tokens must stop being accepted (embedded in the JWT as a claim)
+    @Builder.Default
+    private Long tokenVersion = 0L;
+
+    // Sign-up date ranges (reporting, admin listings) are read through this index
+    @Indexed
     @CreatedDate
     private LocalDateTime createdAt;
     @LastModifiedDate
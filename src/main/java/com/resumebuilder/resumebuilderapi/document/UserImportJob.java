@@ -0,0 +1,60 @@
+package com.resumebuilder.resumebuilderapi.document;
+
+import com.resumebuilder.resumebuilderapi.dto.UserImportResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*
+This document tracks one bulk user import, the import runs in the background and the admin polls this status
+status moves QUEUED -> RUNNING -> COMPLETED, or to FAILED when the input could not be processed to the end
+result holds the counts so far and is saved after every batch, so a running import shows its progress
+Mongo removes the document once purgeAt has passed (TTL index)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document (collection = "user_import_job")
+public class UserImportJob {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private String id;
+
+    // Id of the admin who started the import
+    private String requestedBy;
+
+    private String contentType;
+    private Boolean sendVerificationEmails;
+
+    @Builder.Default
+    private String status = QUEUED;
+
+    @Builder.Default
+    private UserImportResult result = new UserImportResult();
+
+    // Why the import stopped early, only set when FAILED
+    private String error;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    // Set after every batch, a RUNNING job that is no longer updated was interrupted (e.g. its node was stopped)
+    private LocalDateTime updatedAt;
+
+    @Indexed(expireAfter = "0s")
+    private LocalDateTime purgeAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+}
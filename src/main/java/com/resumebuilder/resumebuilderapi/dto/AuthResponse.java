@@ -22,6 +22,7 @@ import java.time.LocalDateTime;
  *     <li>Subscription plan information</li>
  *     <li>Email verification status</li>
  *     <li>JWT authentication token</li>
+ *     <li>Refresh token</li>
  *     <li>Account creation and update timestamps</li>
  * </ul>
  *
@@ -78,6 +79,13 @@ public class AuthResponse {
      */
     private String token;
 
+    /**
+     * The refresh token used to obtain a new access token from {@code /api/auth/refresh}.
+     *
+     * <p>Each refresh token can be used only once; every refresh returns a new one.</p>
+     */
+    private String refreshToken;
+
     /**
      * The date and time when the user account was created.
      */
@@ -0,0 +1,21 @@
+package com.resumebuilder.resumebuilderapi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+This class is the Data Transfer Object of the refresh request
+It carries the refresh token that was returned by login or by the previous refresh
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RefreshTokenRequest {
+
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
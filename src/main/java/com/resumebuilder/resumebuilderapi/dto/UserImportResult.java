@@ -0,0 +1,50 @@
+package com.resumebuilder.resumebuilderapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+This class is the Data Transfer Object returned by the bulk user import
+It carries the counts of every outcome and the rows that were not imported, with their line number and reason
+Only the first max-reported-errors rows are listed, the counts always cover the whole input
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserImportResult {
+
+    private int received;
+    private int imported;
+
+    // Email already registered, or repeated within the input
+    private int conflicts;
+
+    // Row could not be parsed or failed validation
+    private int invalid;
+
+    // Insert failed for another reason
+    private int failed;
+
+    private int emailsQueued;
+
+    // Imported users whose verification email could not be queued, they can use resend-verification
+    private int emailsNotQueued;
+
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private int line;
+        private String email;
+        private String reason;
+    }
+}
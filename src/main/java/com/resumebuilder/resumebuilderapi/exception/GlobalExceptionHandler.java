@@ -2,6 +2,8 @@ package com.resumebuilder.resumebuilderapi.exception;
 
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -45,6 +47,70 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
     }
 
+    // A unique index rejected a write, e.g. an email registered concurrently
+    @ExceptionHandler (DuplicateKeyException.class)
+    public ResponseEntity<Map<String, Object>> handleDuplicateKeyException(DuplicateKeyException ex) {
+        log.info("Inside GlobalExceptionHandler - handleDuplicateKeyException()");
+        return handleResourceExistsException(new ResourceExistsException("Resource already exists"));
+    }
+
+    @ExceptionHandler (InvalidTokenException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidTokenException(InvalidTokenException ex) {
+        log.info("Inside GlobalExceptionHandler - handleInvalidTokenException()");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "invalid token");
+        response.put("error", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
+
+    @ExceptionHandler (BadRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequestException(BadRequestException ex) {
+        log.info("Inside GlobalExceptionHandler - handleBadRequestException()");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "bad request");
+        response.put("error", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    @ExceptionHandler (ForbiddenException.class)
+    public ResponseEntity<Map<String, Object>> handleForbiddenException(ForbiddenException ex) {
+        log.info("Inside GlobalExceptionHandler - handleForbiddenException()");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "forbidden");
+        response.put("error", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+    }
+
+    @ExceptionHandler (ResourceNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleResourceNotFoundException(ResourceNotFoundException ex) {
+        log.info("Inside GlobalExceptionHandler - handleResourceNotFoundException()");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "not found");
+        response.put("error", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
+    @ExceptionHandler (TooManyRequestsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyRequestsException(TooManyRequestsException ex) {
+        log.info("Inside GlobalExceptionHandler - handleTooManyRequestsException()");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "too many requests");
+        response.put("error", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     @ExceptionHandler (Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericException (Exception ex) {
         Map<String, Object> response = new HashMap<>();
@@ -0,0 +1,8 @@
+package com.resumebuilder.resumebuilderapi.exception;
+
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
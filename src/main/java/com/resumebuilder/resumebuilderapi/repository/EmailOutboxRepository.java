@@ -0,0 +1,9 @@
+package com.resumebuilder.resumebuilderapi.repository;
+
+import com.resumebuilder.resumebuilderapi.document.EmailOutboxMessage;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface EmailOutboxRepository extends MongoRepository<EmailOutboxMessage, String> {
+
+    long countByStatus(String status);
+}
@@ -0,0 +1,13 @@
+package com.resumebuilder.resumebuilderapi.repository;
+
+import com.resumebuilder.resumebuilderapi.document.RefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    void deleteByFamilyId(String familyId);
+    void deleteByUserId(String userId);
+}
@@ -0,0 +1,14 @@
+package com.resumebuilder.resumebuilderapi.repository;
+
+import com.resumebuilder.resumebuilderapi.document.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+
+    List<RevokedToken> findByRevokedAtAfter(LocalDateTime revokedAt);
+    Stream<RevokedToken> findByExpiresAtAfter(LocalDateTime expiresAt);
+}
@@ -0,0 +1,7 @@
+package com.resumebuilder.resumebuilderapi.repository;
+
+import com.resumebuilder.resumebuilderapi.document.UserImportJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface UserImportJobRepository extends MongoRepository<UserImportJob, String> {
+}
@@ -2,6 +2,7 @@ package com.resumebuilder.resumebuilderapi.repository;
 
 import com.resumebuilder.resumebuilderapi.document.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.Optional;
 
@@ -10,4 +11,16 @@ public interface UserRepository  extends MongoRepository<User, String> {
     Optional<User> findByEmail(String email);
     Boolean existsByEmail (String email);
     Optional<User> findByVerificationToken(String verificationToken);
-}
\ No newline at end of file
+
+    // Login: the password hash and the fields of the login response, without the verification fields
+    @Query(value = "{ 'email': ?0 }",
+            fields = "{ 'name': 1, 'email': 1, 'password': 1, 'profileImageUrl': 1, 'subscriptionPlan': 1, "
+                    + "'emailVerified': 1, 'tokenVersion': 1, 'createdAt': 1, 'updatedAt': 1 }")
+    Optional<User> findLoginUserByEmail(String email);
+
+    // Authenticated principal: identity and profile fields only, the password hash never leaves the db
+    @Query(value = "{ '_id': ?0 }",
+            fields = "{ 'name': 1, 'email': 1, 'profileImageUrl': 1, 'subscriptionPlan': 1, "
+                    + "'emailVerified': 1, 'tokenVersion': 1, 'createdAt': 1, 'updatedAt': 1 }")
+    Optional<User> findPrincipalById(String id);
+}
@@ -0,0 +1,144 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import com.resumebuilder.resumebuilderapi.document.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * AuthenticatedPrincipalCache keeps recently loaded users in memory so that
+ * {@link JwtAuthenticationFilter} does not query MongoDB on every authenticated request.
+ *
+ * <p>The cache is bounded both by size and by time-to-live. Any code that changes a user
+ * (email verification, resending the verification link, profile updates) must call
+ * {@link #invalidate(String)} so a stale principal never outlives the change.</p>
+ *
+ * <p>Example configuration:</p>
+ * <pre>
+ * security.principal-cache.max-size=10000
+ * security.principal-cache.ttl=5m
+ * </pre>
+ *
+ * <p>Hits, misses, evictions and the current size are published as Micrometer metrics
+ * under the {@code security.principal.cache} prefix.</p>
+ */
+@Component
+@Slf4j
+public class AuthenticatedPrincipalCache {
+
+    /**
+     * Maximum number of principals kept in memory. A value of 0 disables the cache.
+     */
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * How long a loaded principal may be served from memory.
+     */
+    @Value("${security.principal-cache.ttl:5m}")
+    private Duration ttl;
+
+    private final Map<String, CachedPrincipal> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every invalidation so that a load which started before an
+     * invalidation does not put the stale user back into the cache.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    public AuthenticatedPrincipalCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("security.principal.cache.hits")
+                .description("Principal lookups served from memory")
+                .register(meterRegistry);
+        this.misses = Counter.builder("security.principal.cache.misses")
+                .description("Principal lookups that went to the database")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("security.principal.cache.evictions")
+                .description("Principals removed because the cache was full")
+                .register(meterRegistry);
+        Gauge.builder("security.principal.cache.size", entries, Map::size)
+                .description("Principals currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the user for the given id, loading it with {@code loader} on a miss.
+     *
+     * @param userId the id of the authenticated user
+     * @param loader function used to load the user from the database on a cache miss
+     * @return the cached or freshly loaded user, or an empty Optional if the user does not exist
+     */
+    public Optional<User> get(String userId, Function<String, Optional<User>> loader) {
+        long now = System.nanoTime();
+        CachedPrincipal cached = entries.get(userId);
+        if (cached != null && cached.expiresAtNanos() - now > 0) {
+            hits.increment();
+            return Optional.of(cached.user());
+        }
+
+        misses.increment();
+        long invalidationsBeforeLoad = invalidations.get();
+        Optional<User> loaded = loader.apply(userId);
+
+        if (loaded.isPresent() && maxSize > 0 && invalidations.get() == invalidationsBeforeLoad) {
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            entries.put(userId, new CachedPrincipal(loaded.get(), now + ttl.toNanos()));
+        }
+        return loaded;
+    }
+
+    /**
+     * Removes the cached principal of a user whose data has changed.
+     *
+     * @param userId the id of the changed user
+     */
+    public void invalidate(String userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        entries.remove(userId);
+        log.debug("Principal cache invalidated for user {}", userId);
+    }
+
+    /**
+     * Removes all cached principals.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    private record CachedPrincipal(User user, long expiresAtNanos) {
+    }
+}
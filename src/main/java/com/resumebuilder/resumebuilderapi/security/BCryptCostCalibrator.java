@@ -0,0 +1,80 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * BCryptCostCalibrator picks the BCrypt work factor for the hardware the application runs on.
+ *
+ * <p>Starting from the minimum strength, it hashes a sample password at increasing
+ * strengths and returns the highest strength whose hashing time stays within the target
+ * latency. Each strength step doubles the cost, so only a few strengths are measured.</p>
+ *
+ * <p>Startup is a noisy time to measure: the JIT has not compiled the hashing code yet and
+ * other beans compete for the CPU. The hashing code is therefore warmed up first, and each
+ * strength is timed several times and judged by the median, so one slow or fast outlier
+ * does not move the result by a whole strength step.</p>
+ *
+ * <p>The calibration runs once at startup, from {@code SecurityConfig}, unless the strength
+ * is pinned with {@code security.password.bcrypt.strength}.</p>
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    // Cheap hashes that get the hashing code compiled before anything is timed
+    private static final int WARM_UP_HASHES = 50;
+
+    private static final int WARM_UP_STRENGTH = 4;
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * Measures BCrypt on this machine and returns the strength closest to the target without exceeding it.
+     *
+     * @param target      the desired time for hashing one password
+     * @param minStrength the lowest strength that may be returned, even if it is slower than the target
+     * @param maxStrength the highest strength that may be returned
+     * @param samples     the number of hashes timed per strength, the median is used
+     * @return the calibrated BCrypt strength
+     */
+    public static int calibrate(Duration target, int minStrength, int maxStrength, int samples) {
+        int sampleCount = Math.max(1, samples);
+
+        // Warm up the JIT so the first measurements are not inflated
+        BCryptPasswordEncoder warmUp = new BCryptPasswordEncoder(WARM_UP_STRENGTH);
+        for (int i = 0; i < WARM_UP_HASHES; i++) {
+            warmUp.encode(SAMPLE_PASSWORD);
+        }
+
+        int strength = minStrength;
+        long elapsedNanos = medianNanos(strength, sampleCount);
+
+        // The next strength costs about twice as much, stop before it exceeds the target
+        while (strength < maxStrength && elapsedNanos * 2 <= target.toNanos()) {
+            strength++;
+            elapsedNanos = medianNanos(strength, sampleCount);
+        }
+
+        log.info("BCrypt calibrated to strength {} (median {} ms per hash over {} samples, target {} ms)",
+                strength, Duration.ofNanos(elapsedNanos).toMillis(), sampleCount, target.toMillis());
+        return strength;
+    }
+
+    private static long medianNanos(int strength, int samples) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long[] elapsed = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            elapsed[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(elapsed);
+        return elapsed[samples / 2];
+    }
+}
@@ -0,0 +1,112 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BloomFilter is a small, thread-safe Bloom filter for string keys.
+ *
+ * <p>{@link #mightContain(String)} never returns false for a key that was added, and returns
+ * true for a key that was not added with roughly the configured false-positive probability.
+ * Bits are stored in an {@link AtomicLongArray}, so adds and lookups need no locking.</p>
+ *
+ * <p>Bit positions are derived by double hashing from a single 64-bit FNV-1a hash of the key.</p>
+ */
+class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    private final AtomicInteger insertions = new AtomicInteger();
+
+    /**
+     * Creates a filter sized for the expected number of keys and false-positive probability.
+     *
+     * @param expectedInsertions number of keys the filter is expected to hold
+     * @param falsePositiveRate  target false-positive probability, e.g. 0.01
+     */
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, (m + 63) / 64 * 64);
+        this.bitCount = m;
+        this.hashCount = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (m / 64));
+    }
+
+    /**
+     * Adds a key to the filter.
+     *
+     * @param key the key to add
+     */
+    void put(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Checks whether the key may have been added.
+     *
+     * @param key the key to check
+     * @return false if the key was definitely never added, true if it might have been
+     */
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of keys added so far.
+     *
+     * @return the insertion count
+     */
+    int insertions() {
+        return insertions.get();
+    }
+
+    /**
+     * Estimates the current false-positive probability from the number of keys added.
+     *
+     * @return the expected false-positive probability
+     */
+    double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) insertions.get() / bitCount), hashCount);
+    }
+
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        // Final avalanche step so that both 32-bit halves are well mixed
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,91 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ClientIpResolver determines the IP address of the client that sent a request.
+ *
+ * <p>Behind a load balancer or reverse proxy, {@link HttpServletRequest#getRemoteAddr()} is
+ * the address of the proxy, so every client would share the same per-IP limits. When the
+ * request comes from a trusted proxy, the {@code X-Forwarded-For} header is read from right
+ * to left and the first address that is not a trusted proxy is the client. Addresses further
+ * left were written by the client itself and are ignored, so they cannot be spoofed.</p>
+ *
+ * <p>Requests that do not come from a trusted proxy are attributed to their remote address
+ * and their {@code X-Forwarded-For} header is ignored. The trusted proxies default to the
+ * loopback and private address ranges, the same default as Tomcat's {@code RemoteIpValve}.</p>
+ *
+ * <p>Example configuration:</p>
+ * <pre>
+ * security.trusted-proxies=10.0.0.0/8,192.168.0.0/16
+ * </pre>
+ */
+@Component
+public class ClientIpResolver {
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    /**
+     * Address ranges of the proxies allowed to report the client address.
+     */
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public ClientIpResolver(@Value("${security.trusted-proxies:127.0.0.0/8,::1/128,10.0.0.0/8,172.16.0.0/12,"
+            + "192.168.0.0/16,169.254.0.0/16,fc00::/7,fe80::/10}") String[] trustedProxies) {
+        this.trustedProxies = Arrays.stream(trustedProxies)
+                .map(String::trim)
+                .filter(range -> !range.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    /**
+     * Returns the IP address of the client that sent the request.
+     *
+     * @param request the incoming HTTP request
+     * @return the client address, or the remote address if no untrusted address was forwarded
+     */
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrustedProxy(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = request.getHeader(FORWARDED_FOR);
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !isTrustedProxy(hop)) {
+                return hop;
+            }
+        }
+        // Every hop was a proxy, the left-most one is as close to the client as it gets
+        String first = hops[0].trim();
+        return first.isEmpty() ? remoteAddr : first;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        if (address == null) {
+            return false;
+        }
+        try {
+            for (IpAddressMatcher proxy : trustedProxies) {
+                if (proxy.matches(address)) {
+                    return true;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Not an IP address (e.g. a malformed header value)
+            return false;
+        }
+        return false;
+    }
+}
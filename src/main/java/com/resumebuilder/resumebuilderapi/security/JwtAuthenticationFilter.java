@@ -2,7 +2,9 @@ package com.resumebuilder.resumebuilderapi.security;
 
 import com.resumebuilder.resumebuilderapi.document.User;
 import com.resumebuilder.resumebuilderapi.repository.UserRepository;
+import com.resumebuilder.resumebuilderapi.util.AppConstants;
 import com.resumebuilder.resumebuilderapi.util.JwtUtil;
+import com.resumebuilder.resumebuilderapi.util.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,7 +23,7 @@ import java.util.ArrayList;
 
 /**
  * JwtAuthenticationFilter is a custom Spring Security filter that validates JWT tokens
- * for every incoming HTTP request.
+ * for every incoming HTTP request, except requests to public routes.
  *
  * <p>This filter runs once per request because it extends {@link OncePerRequestFilter}.</p>
  *
@@ -31,9 +33,12 @@ import java.util.ArrayList;
  * </pre>
  *
  * <p>If the token is valid and not expired, the filter extracts the userId from the token,
- * fetches the user details from the database, and sets the authenticated user inside
+ * fetches the user details from the {@link AuthenticatedPrincipalCache} (falling back to the database), and sets the authenticated user inside
  * the {@link SecurityContextHolder}.</p>
  *
+ * <p>When {@code jwt.stateless-principal.enabled} is true, the user is built from the
+ * snapshot claims embedded in the token and the database is not queried at all.</p>
+ *
  * <p>This allows Spring Security to treat the request as authenticated and permit access
  * to secured API endpoints.</p>
  */
@@ -43,8 +48,13 @@ import java.util.ArrayList;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     /**
-     * Utility class used for JWT operations such as extracting userId,
-     * validating token signature, and checking expiration.
+     * Public routes compiled once from {@link AppConstants#PUBLIC_ROUTES}.
+     * Requests to these routes skip this filter entirely.
+     */
+    private static final PublicRouteMatcher PUBLIC_ROUTES = new PublicRouteMatcher(AppConstants.PUBLIC_ROUTES);
+
+    /**
+     * Utility class used to verify the token signature and expiration in a single parse.
      */
     private final JwtUtil jwtUtil;
 
@@ -53,6 +63,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      */
     private final UserRepository userRepository;
 
+    /**
+     * Cache of recently loaded users, used to avoid a database lookup on every request.
+     */
+    private final AuthenticatedPrincipalCache principalCache;
+
+    /**
+     * Deny list of tokens revoked before their expiry, fronted by an in-memory Bloom filter.
+     */
+    private final TokenRevocationService revocationService;
+
+    /**
+     * Skips the filter for public routes such as login, registration and actuator endpoints.
+     *
+     * <p>These routes are permitted without authentication, so reading the header and
+     * verifying a token would be wasted work.</p>
+     *
+     * @param request the incoming HTTP request
+     * @return true if the request targets a public route
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return PUBLIC_ROUTES.matches(path);
+    }
+
     /**
      * Filters every request to validate the JWT token and set authentication context.
      *
@@ -60,9 +95,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * <ul>
      *     <li>Reads the Authorization header from the request</li>
      *     <li>Checks if the header starts with "Bearer"</li>
-     *     <li>Extracts the token and reads userId from it</li>
-     *     <li>Validates the token signature and checks if token is expired</li>
-     *     <li>Fetches the user from the database using userId</li>
+     *     <li>Extracts the token and verifies its signature and expiration once</li>
+     *     <li>Rejects the token if it has been revoked</li>
+     *     <li>Reads the userId from the verified claims</li>
+     *     <li>Fetches the user from the principal cache, or from the database on a cache miss</li>
      *     <li>Creates an Authentication object and stores it in SecurityContext</li>
      *     <li>Passes the request to the next filter in the chain</li>
      * </ul>
@@ -84,33 +120,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String authHeader = request.getHeader("Authorization");
 
-        String token = null;
-        String userId = null;
+        VerifiedToken verifiedToken = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer")) {
-            token = authHeader.substring(7);
-            try {
-                userId = jwtUtil.generateUserIdFromToken(token);
-            } catch (Exception e) {
+            String token = authHeader.substring(7);
+            verifiedToken = jwtUtil.verifyToken(token).orElse(null);
+            if (verifiedToken == null) {
                 log.info("Token is not valid or available");
+            } else if (revocationService.isRevoked(verifiedToken.tokenId())) {
+                log.info("Token has been revoked");
+                verifiedToken = null;
             }
         }
 
-        if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (verifiedToken != null && verifiedToken.userId() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                if (jwtUtil.validateToken(token) && !jwtUtil.isTokenExpired(token)) {
-
-                    User user = userRepository.findById(userId)
-                            .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+                User user = resolvePrincipal(verifiedToken);
 
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
 
-                    authToken.setDetails(new WebAuthenticationDetailsSource()
-                            .buildDetails(request));
+                authToken.setDetails(new WebAuthenticationDetailsSource()
+                        .buildDetails(request));
 
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+                SecurityContextHolder.getContext().setAuthentication(authToken);
 
             } catch (Exception e) {
                 log.info("Exception occurred while validating the token");
@@ -120,4 +154,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Resolves the user that the verified token belongs to.
+     *
+     * <p>In stateless principal mode the user is built from the token claims with no
+     * database access, and the token is rejected if its token version was revoked by a
+     * logout from all devices. Otherwise the user is loaded through the principal cache, and the
+     * token is rejected if its token version is older than the user's current one. Only the
+     * identity and profile fields are read; the password hash is never loaded.</p>
+     *
+     * @param verifiedToken the verified JWT
+     * @return the authenticated user
+     * @throws UsernameNotFoundException if the user does not exist or the token was invalidated
+     */
+    private User resolvePrincipal(VerifiedToken verifiedToken) {
+        Long tokenVersion = verifiedToken.longClaim(JwtUtil.CLAIM_TOKEN_VERSION);
+
+        if (jwtUtil.isStatelessPrincipalEnabled() && tokenVersion != null) {
+            if (revocationService.isTokenVersionRevoked(verifiedToken.userId(), tokenVersion)) {
+                throw new UsernameNotFoundException("Token version is no longer valid");
+            }
+            return User.builder()
+                    .id(verifiedToken.userId())
+                    .emailVerified(Boolean.TRUE.equals(verifiedToken.booleanClaim(JwtUtil.CLAIM_EMAIL_VERIFIED)))
+                    .subscriptionPlan(verifiedToken.stringClaim(JwtUtil.CLAIM_SUBSCRIPTION_PLAN))
+                    .tokenVersion(tokenVersion)
+                    .build();
+        }
+
+        User user = principalCache.get(verifiedToken.userId(), userRepository::findPrincipalById)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        if (tokenVersion != null && user.getTokenVersion() != null && tokenVersion < user.getTokenVersion()) {
+            throw new UsernameNotFoundException("Token version is no longer valid");
+        }
+        return user;
+    }
+
 }
\ No newline at end of file
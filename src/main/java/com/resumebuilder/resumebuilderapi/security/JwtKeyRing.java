@@ -0,0 +1,374 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JwtKeyRing holds the asymmetric keys used to sign and verify JWT tokens.
+ *
+ * <p>When {@code jwt.signing.algorithm=ES256}, tokens are signed with the current active
+ * private key and carry its key id ({@code kid}) in the header. All verification keys are
+ * parsed once and indexed by {@code kid}, so verifying a token is a single map lookup.</p>
+ *
+ * <p>Keys come from one of two sources:</p>
+ * <ul>
+ *     <li>A PKCS12 keystore ({@code jwt.keys.keystore}), where each alias is a key id.
+ *     The keystore is reloaded on every rotation, so operators rotate keys by adding a new
+ *     alias and pointing {@code jwt.keys.active-kid} to it. This is the mode to use when
+ *     several API nodes must accept each other's tokens.</li>
+ *     <li>Keys generated in memory, with a new key generated every rotation interval.
+ *     Every node would generate its own keys and reject the tokens of the others, so this
+ *     mode must be enabled explicitly with {@code jwt.keys.single-node=true}; without a
+ *     keystore and without that flag, startup fails.</li>
+ * </ul>
+ *
+ * <p>The public keys are published as a JSON Web Key Set by the JWKS endpoint, which other
+ * services cache for {@code jwt.keys.jwks-max-age}. A new key is therefore published first
+ * and only signs tokens once that max-age has passed, so every verifier has it by then. In
+ * keystore mode this applies to an alias that appears in the keystore together with the
+ * {@code active-kid} change; adding the alias one max-age ahead of switching
+ * {@code active-kid} to it lets the switch take effect at the next reload. A retired key
+ * stays available for verification until every token it signed has expired.</p>
+ *
+ * <p>Example configuration:</p>
+ * <pre>
+ * jwt.signing.algorithm=ES256
+ * jwt.keys.keystore=file:/etc/resumebuilder/jwt-keys.p12
+ * jwt.keys.keystore-password=changeit
+ * jwt.keys.active-kid=2026-10
+ * jwt.keys.rotation-interval=PT24H
+ * jwt.keys.jwks-max-age=15m
+ * </pre>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtKeyRing {
+
+    /**
+     * Signing algorithm used for new tokens, either HS256 (shared secret) or ES256.
+     */
+    @Value("${jwt.signing.algorithm:HS256}")
+    private String algorithm;
+
+    /**
+     * Optional location of a PKCS12 keystore holding the EC signing keys.
+     */
+    @Value("${jwt.keys.keystore:}")
+    private String keystoreLocation;
+
+    @Value("${jwt.keys.keystore-password:}")
+    private String keystorePassword;
+
+    /**
+     * Alias of the keystore entry used for signing. Defaults to the last alias in the keystore.
+     */
+    @Value("${jwt.keys.active-kid:}")
+    private String activeKid;
+
+    /**
+     * Allows keys generated in memory, only valid when a single node issues and verifies tokens.
+     */
+    @Value("${jwt.keys.single-node:false}")
+    private boolean singleNode;
+
+    /**
+     * How long clients may cache the JWKS document, a new key signs only after this long.
+     */
+    @Value("${jwt.keys.jwks-max-age:15m}")
+    private Duration jwksMaxAge;
+
+    /**
+     * Token lifetime, used to decide how long a retired key must still verify tokens.
+     */
+    @Value("${jwt.expiration}")
+    private Long jwtExpiration;
+
+    private final ResourceLoader resourceLoader;
+
+    private final Map<String, VerificationKey> verificationKeys = new ConcurrentHashMap<>();
+
+    private volatile SigningKey signingKey;
+
+    // Published in the JWKS already, becomes the signing key once verifiers have had time to fetch it
+    private volatile PendingKey pendingKey;
+
+    private volatile Map<String, Object> jwks = Map.of("keys", List.of());
+
+    /**
+     * Loads or generates the initial keys when ES256 signing is enabled.
+     *
+     * @throws IllegalStateException if no keystore is configured and single-node mode is not enabled
+     */
+    @PostConstruct
+    void init() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        if (!hasKeystore() && !singleNode) {
+            throw new IllegalStateException("ES256 signing needs a keystore shared by all nodes (jwt.keys.keystore), "
+                    + "keys generated in memory are only accepted by the node that generated them; "
+                    + "set jwt.keys.single-node=true to run a single node without a keystore");
+        }
+        rotate();
+    }
+
+    /**
+     * Returns whether tokens are signed with the asymmetric keys of this ring.
+     *
+     * @return true if ES256 signing is enabled
+     */
+    public boolean isAsymmetric() {
+        return SignatureAlgorithm.ES256.getValue().equalsIgnoreCase(algorithm);
+    }
+
+    /**
+     * Returns the key currently used to sign new tokens.
+     *
+     * @return the active signing key with its key id
+     */
+    public SigningKey signingKey() {
+        return signingKey;
+    }
+
+    /**
+     * Returns the pre-parsed public key for the given key id.
+     *
+     * @param kid the key id from the token header
+     * @return the public key, or null if the key id is unknown or its grace period has ended
+     */
+    public Key verificationKey(String kid) {
+        VerificationKey key = verificationKeys.get(kid);
+        return key != null ? key.publicKey() : null;
+    }
+
+    /**
+     * Returns the public keys as a JSON Web Key Set.
+     *
+     * <p>The document is built on rotation, so this call does no work per request.</p>
+     *
+     * @return the JWKS document
+     */
+    public Map<String, Object> jwks() {
+        return jwks;
+    }
+
+    /**
+     * Returns how long clients may cache the JWKS document.
+     *
+     * @return the JWKS cache max-age
+     */
+    public Duration jwksMaxAge() {
+        return jwksMaxAge;
+    }
+
+    /**
+     * Rotates the keys and drops keys whose tokens have all expired.
+     *
+     * <p>With a keystore configured, the keystore is reloaded. Otherwise a new key pair is
+     * generated and published; it replaces the current signing key once the JWKS max-age has
+     * passed, see {@link #activatePendingKey()}.</p>
+     */
+    @Scheduled(fixedDelayString = "${jwt.keys.rotation-interval:PT24H}",
+            initialDelayString = "${jwt.keys.rotation-interval:PT24H}")
+    public synchronized void rotate() {
+        if (!isAsymmetric()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        if (hasKeystore()) {
+            loadKeystore(now);
+        } else {
+            generateKey(now);
+        }
+        activateIfDue(now);
+
+        Instant cutoff = now.minus(Duration.ofMillis(jwtExpiration));
+        verificationKeys.values().removeIf(key -> key.retiredAt() != null && key.retiredAt().isBefore(cutoff));
+
+        jwks = buildJwks();
+        PendingKey pending = pendingKey;
+        if (pending != null) {
+            log.info("JWT signing key is {}, key {} is published and signs from {} ({} verification keys)",
+                    signingKey.kid(), pending.key().kid(), pending.activateAt(), verificationKeys.size());
+        } else {
+            log.info("JWT signing key is now {} ({} verification keys)", signingKey.kid(), verificationKeys.size());
+        }
+    }
+
+    /**
+     * Switches signing to the published pending key once every cached JWKS document contains it.
+     */
+    @Scheduled(fixedDelayString = "${jwt.keys.activation-check-interval:PT1M}")
+    public synchronized void activatePendingKey() {
+        if (isAsymmetric() && activateIfDue(Instant.now())) {
+            log.info("JWT signing key is now {} ({} verification keys)", signingKey.kid(), verificationKeys.size());
+        }
+    }
+
+    private boolean hasKeystore() {
+        return keystoreLocation != null && !keystoreLocation.isBlank();
+    }
+
+    private void generateKey(Instant now) {
+        if (pendingKey != null) {
+            // The key generated by the previous rotation has not started signing yet
+            return;
+        }
+        KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        String kid = UUID.randomUUID().toString();
+        verificationKeys.put(kid, new VerificationKey(kid, keyPair.getPublic(), null));
+        SigningKey key = new SigningKey(kid, keyPair.getPrivate());
+        if (signingKey == null) {
+            // First key of this node, there is no earlier key to keep signing with
+            signingKey = key;
+        } else {
+            pendingKey = new PendingKey(key, now.plus(jwksMaxAge));
+        }
+    }
+
+    private boolean activateIfDue(Instant now) {
+        PendingKey pending = pendingKey;
+        if (pending == null || now.isBefore(pending.activateAt())) {
+            return false;
+        }
+        activate(pending.key(), now);
+        return true;
+    }
+
+    // Makes the key the signing key and retires the previous one
+    private void activate(SigningKey key, Instant now) {
+        SigningKey previous = signingKey;
+        signingKey = key;
+        pendingKey = null;
+        if (previous != null && !previous.kid().equals(key.kid())) {
+            verificationKeys.computeIfPresent(previous.kid(),
+                    (kid, existing) -> existing.retiredAt() == null ? existing.retire(now) : existing);
+        }
+    }
+
+    private void loadKeystore(Instant now) {
+        try (InputStream in = resourceLoader.getResource(keystoreLocation).getInputStream()) {
+            char[] password = keystorePassword.toCharArray();
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, password);
+
+            List<String> aliases = Collections.list(keyStore.aliases());
+            Collections.sort(aliases);
+            SigningKey active = null;
+            Set<String> published = Set.copyOf(verificationKeys.keySet());
+
+            for (String alias : aliases) {
+                Certificate certificate = keyStore.getCertificate(alias);
+                Key privateKey = keyStore.getKey(alias, password);
+                if (certificate == null || !(privateKey instanceof PrivateKey)) {
+                    continue;
+                }
+                verificationKeys.putIfAbsent(alias, new VerificationKey(alias, certificate.getPublicKey(), null));
+                if (activeKid.isBlank() || activeKid.equals(alias)) {
+                    active = new SigningKey(alias, (PrivateKey) privateKey);
+                }
+            }
+
+            // Keys removed from the keystore are retired and kept until their tokens expire
+            verificationKeys.replaceAll((kid, key) ->
+                    aliases.contains(kid) || key.retiredAt() != null ? key : key.retire(now));
+
+            if (active == null) {
+                throw new IllegalStateException("No usable signing key found in " + keystoreLocation);
+            }
+
+            // A key seen for the first time is published now and signs once cached JWKS documents have expired
+            PendingKey pending = pendingKey;
+            boolean alreadyPending = pending != null && pending.key().kid().equals(active.kid());
+            if (signingKey == null || active.kid().equals(signingKey.kid())
+                    || (published.contains(active.kid()) && !alreadyPending)) {
+                activate(active, now);
+            } else if (!alreadyPending) {
+                pendingKey = new PendingKey(active, now.plus(jwksMaxAge));
+            }
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load JWT keystore: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, Object> buildJwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (VerificationKey key : verificationKeys.values()) {
+            if (!(key.publicKey() instanceof ECPublicKey ecKey)) {
+                continue;
+            }
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("use", "sig");
+            jwk.put("alg", SignatureAlgorithm.ES256.getValue());
+            jwk.put("kid", key.kid());
+            jwk.put("x", encodeCoordinate(ecKey.getW().getAffineX()));
+            jwk.put("y", encodeCoordinate(ecKey.getW().getAffineY()));
+            keys.add(Collections.unmodifiableMap(jwk));
+        }
+        return Map.of("keys", List.copyOf(keys));
+    }
+
+    /**
+     * Encodes a P-256 curve coordinate as a 32-byte, unsigned, base64url value (RFC 7518).
+     */
+    private static String encodeCoordinate(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    /**
+     * The private key used to sign new tokens, together with its key id.
+     */
+    public record SigningKey(String kid, PrivateKey privateKey) {
+    }
+
+    /**
+     * A published key that starts signing at {@code activateAt}.
+     */
+    private record PendingKey(SigningKey key, Instant activateAt) {
+    }
+
+    private record VerificationKey(String kid, PublicKey publicKey, Instant retiredAt) {
+
+        VerificationKey retire(Instant when) {
+            return new VerificationKey(kid, publicKey, when);
+        }
+    }
+}
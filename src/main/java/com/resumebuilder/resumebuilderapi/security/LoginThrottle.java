@@ -0,0 +1,280 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import com.resumebuilder.resumebuilderapi.document.LoginAttempt;
+import com.resumebuilder.resumebuilderapi.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoginThrottle limits login attempts per email address and per client IP address.
+ *
+ * <p>It runs before any database or password hashing work, so abusive callers are rejected
+ * at the cost of a map lookup. Each key has a token bucket that holds up to {@code limit}
+ * attempts and refills at {@code limit} attempts per {@code window}. Every bucket has its own
+ * lock, so callers with different keys never contend with each other.</p>
+ *
+ * <p>Memory is bounded: buckets that have been idle for {@code idle-timeout} are removed
+ * periodically. When {@code max-entries} is reached, idle buckets and buckets that have
+ * refilled completely are dropped, since a new bucket would behave the same. If that is not
+ * enough, the least recently used buckets that would still allow an attempt are dropped. A
+ * bucket that is throttling is never dropped, so a caller cannot flush its own bucket by
+ * sending attempts for many other keys. If every bucket is throttling, attempts for new keys
+ * are let through without a local bucket rather than locking out every first-time login;
+ * the keys that are already throttled, and the shared limit, still apply. Such attempts are
+ * counted in the {@code security.login.throttle.saturated} metric.</p>
+ *
+ * <p>With {@code security.login-throttle.shared=true}, attempts that pass the local bucket
+ * are also counted in a fixed-window counter in the {@code login_attempt} collection, so
+ * all nodes enforce the same limit.</p>
+ *
+ * <p>Example configuration:</p>
+ * <pre>
+ * security.login-throttle.email-limit=10
+ * security.login-throttle.ip-limit=100
+ * security.login-throttle.window=1m
+ * security.login-throttle.shared=false
+ * </pre>
+ *
+ * <p>Rejected attempts are counted in the {@code security.login.throttled} metric, tagged by scope.</p>
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+
+    // At capacity, at most one scan for removable buckets per interval, so a flood of new keys stays cheap
+    private static final long MAKE_ROOM_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
+
+    // Share of max-entries evicted by least recent use when idle and full buckets do not free enough
+    private static final int LRU_EVICTION_DIVISOR = 100;
+
+    @Value("${security.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.login-throttle.email-limit:10}")
+    private int emailLimit;
+
+    @Value("${security.login-throttle.ip-limit:100}")
+    private int ipLimit;
+
+    @Value("${security.login-throttle.window:1m}")
+    private Duration window;
+
+    @Value("${security.login-throttle.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${security.login-throttle.idle-timeout:10m}")
+    private Duration idleTimeout;
+
+    @Value("${security.login-throttle.shared:false}")
+    private boolean shared;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final Counter emailRejections;
+
+    private final Counter ipRejections;
+
+    private final Counter saturated;
+
+    private final AtomicLong lastMakeRoomNanos = new AtomicLong(System.nanoTime() - MAKE_ROOM_INTERVAL_NANOS);
+
+    public LoginThrottle(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.emailRejections = Counter.builder("security.login.throttled")
+                .tag("scope", "email")
+                .description("Login attempts rejected by the throttle")
+                .register(meterRegistry);
+        this.ipRejections = Counter.builder("security.login.throttled")
+                .tag("scope", "ip")
+                .description("Login attempts rejected by the throttle")
+                .register(meterRegistry);
+        this.saturated = Counter.builder("security.login.throttle.saturated")
+                .description("Login attempts for new keys let through because every bucket was throttling")
+                .register(meterRegistry);
+        Gauge.builder("security.login.throttle.buckets", buckets, Map::size)
+                .description("Login throttle buckets held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a login attempt and rejects it if the email or the IP address is over its limit.
+     *
+     * @param email    the email address used in the attempt
+     * @param clientIp the IP address of the caller, may be null
+     * @throws TooManyRequestsException if either limit has been reached
+     */
+    public void checkLoginAttempt(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        if (clientIp != null && !tryAcquire("ip:" + clientIp, ipLimit)) {
+            ipRejections.increment();
+            throw new TooManyRequestsException("Too many login attempts, please try again later");
+        }
+        if (email != null && !tryAcquire("email:" + email.toLowerCase(Locale.ROOT), emailLimit)) {
+            emailRejections.increment();
+            throw new TooManyRequestsException("Too many login attempts, please try again later");
+        }
+    }
+
+    /**
+     * Removes buckets that have not been used for the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${security.login-throttle.sweep-interval:PT1M}")
+    public void evictIdleBuckets() {
+        long idleBefore = System.nanoTime() - idleTimeout.toNanos();
+        buckets.values().removeIf(bucket -> bucket.lastUsedNanos() - idleBefore < 0);
+    }
+
+    private boolean tryAcquire(String key, int limit) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxEntries && !makeRoom()) {
+                // Fail open for this key, rejecting would lock out every first-time login
+                saturated.increment();
+                return !shared || tryAcquireShared(key, limit);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(limit, window));
+        }
+        if (!bucket.tryConsume()) {
+            return false;
+        }
+        return !shared || tryAcquireShared(key, limit);
+    }
+
+    /**
+     * Drops idle and completely refilled buckets, then the least recently used buckets that
+     * are not throttling.
+     *
+     * @return true if there is room for a new bucket
+     */
+    private boolean makeRoom() {
+        long now = System.nanoTime();
+        long last = lastMakeRoomNanos.get();
+        if (now - last >= MAKE_ROOM_INTERVAL_NANOS && lastMakeRoomNanos.compareAndSet(last, now)) {
+            long idleBefore = now - idleTimeout.toNanos();
+            buckets.values().removeIf(bucket -> bucket.lastUsedNanos() - idleBefore < 0 || bucket.isFull(now));
+            if (buckets.size() >= maxEntries) {
+                evictLeastRecentlyUsed(now, Math.max(1, maxEntries / LRU_EVICTION_DIVISOR));
+            }
+            if (buckets.size() >= maxEntries) {
+                log.warn("Login throttle holds {} throttling buckets, new keys are not tracked locally", buckets.size());
+            }
+        }
+        return buckets.size() < maxEntries;
+    }
+
+    // Removes up to count buckets that would allow an attempt, least recently used first
+    private void evictLeastRecentlyUsed(long now, int count) {
+        // lastUsedNanos is read once per bucket, it may change while the candidates are compared
+        record Candidate(String key, TokenBucket bucket, long idleNanos) {
+        }
+        PriorityQueue<Candidate> oldest = new PriorityQueue<>(count + 1, Comparator.comparingLong(Candidate::idleNanos));
+        for (Map.Entry<String, TokenBucket> entry : buckets.entrySet()) {
+            TokenBucket bucket = entry.getValue();
+            if (bucket.isThrottling(now)) {
+                continue;
+            }
+            // The queue keeps the longest idle buckets, its head is the least idle of them
+            oldest.offer(new Candidate(entry.getKey(), bucket, now - bucket.lastUsedNanos()));
+            if (oldest.size() > count) {
+                oldest.poll();
+            }
+        }
+        for (Candidate candidate : oldest) {
+            buckets.remove(candidate.key(), candidate.bucket());
+        }
+    }
+
+    /**
+     * Counts the attempt in a fixed-window counter shared by all nodes.
+     */
+    private boolean tryAcquireShared(String key, int limit) {
+        long windowMillis = window.toMillis();
+        long windowStart = System.currentTimeMillis() / windowMillis * windowMillis;
+        try {
+            LoginAttempt attempt = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(key + ":" + windowStart)),
+                    new Update().inc("count", 1)
+                            .setOnInsert("expiresAt", LocalDateTime.now().plus(window.multipliedBy(2))),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    LoginAttempt.class);
+            return attempt == null || attempt.getCount() <= limit;
+        } catch (Exception e) {
+            // The local bucket still applies, so a database problem must not block every login
+            log.warn("Shared login throttle unavailable: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * A token bucket guarded by its own lock.
+     */
+    private static final class TokenBucket {
+
+        private final int capacity;
+
+        private final long nanosPerToken;
+
+        private double tokens;
+
+        private long lastRefillNanos;
+
+        private volatile long lastUsedNanos;
+
+        TokenBucket(int capacity, Duration window) {
+            this.capacity = capacity;
+            this.nanosPerToken = Math.max(1, window.toNanos() / Math.max(1, capacity));
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+            this.lastUsedNanos = lastRefillNanos;
+        }
+
+        synchronized boolean tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (double) (now - lastRefillNanos) / nanosPerToken);
+            lastRefillNanos = now;
+            lastUsedNanos = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        long lastUsedNanos() {
+            return lastUsedNanos;
+        }
+
+        // A full bucket throttles nothing, dropping it loses no state
+        synchronized boolean isFull(long now) {
+            return tokens + (double) (now - lastRefillNanos) / nanosPerToken >= capacity;
+        }
+
+        // A throttling bucket would reject the next attempt
+        synchronized boolean isThrottling(long now) {
+            return tokens + (double) (now - lastRefillNanos) / nanosPerToken < 1;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PublicRouteMatcher decides whether a request path belongs to a public route.
+ *
+ * <p>It is compiled once from the same route table that {@code SecurityConfig} passes to
+ * {@code permitAll()}. Exact routes are kept in a hash set, and routes ending in {@code /**}
+ * become prefixes, so a match costs one hash lookup plus a few {@code startsWith} checks.</p>
+ *
+ * <p>Only two pattern forms are supported, which is all the route table uses:</p>
+ * <ul>
+ *     <li>{@code /api/auth/login} matches exactly that path</li>
+ *     <li>{@code /actuator/**} matches {@code /actuator} and every path below it</li>
+ * </ul>
+ */
+public class PublicRouteMatcher {
+
+    private final Set<String> exactRoutes = new HashSet<>();
+
+    private final String[] prefixes;
+
+    /**
+     * Compiles the given route patterns.
+     *
+     * @param routes the route patterns, e.g. {@code /api/auth/login} or {@code /actuator/**}
+     * @throws IllegalArgumentException if a pattern uses a wildcard other than a trailing {@code /**}
+     */
+    public PublicRouteMatcher(String... routes) {
+        List<String> prefixList = new ArrayList<>();
+        for (String route : routes) {
+            boolean prefix = route.endsWith("/**");
+            String base = prefix ? route.substring(0, route.length() - 3) : route;
+            if (base.contains("*")) {
+                throw new IllegalArgumentException("Unsupported route pattern: " + route);
+            }
+            exactRoutes.add(base);
+            if (prefix) {
+                prefixList.add(base + "/");
+            }
+        }
+        this.prefixes = prefixList.toArray(new String[0]);
+    }
+
+    /**
+     * Checks whether the path is a public route.
+     *
+     * @param path the request path without the context path
+     * @return true if the path matches one of the compiled routes
+     */
+    public boolean matches(String path) {
+        if (exactRoutes.contains(path)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,251 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import com.resumebuilder.resumebuilderapi.config.ReadinessGate;
+import com.resumebuilder.resumebuilderapi.document.RevokedToken;
+import com.resumebuilder.resumebuilderapi.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * TokenRevocationService keeps track of access tokens revoked before their expiry.
+ *
+ * <p>Revoked token ids ({@code jti}) are stored in the {@code revoked_token} collection,
+ * which expires entries together with the tokens. Every node also keeps an in-process
+ * {@link BloomFilter} of the revoked ids, so the common "not revoked" answer costs a few
+ * hash probes. Only when the filter reports a possible match is MongoDB queried to confirm it.</p>
+ *
+ * <p>The filter is kept current in two ways:</p>
+ * <ul>
+ *     <li>Incremental sync: entries revoked since the last sync (on any node) are added
+ *     every {@code security.revocation.sync-interval}.</li>
+ *     <li>Rebuild: since a Bloom filter cannot remove keys, the filter is rebuilt from the
+ *     non-expired entries every {@code security.revocation.rebuild-interval}, which also
+ *     drops tokens that have expired in the meantime.</li>
+ * </ul>
+ *
+ * <p>The filter is first built when the application has started. Until that succeeds,
+ * revocation checks go straight to MongoDB and the {@link ReadinessGate} refuses traffic; if
+ * MongoDB is unavailable at startup the build is retried on every incremental sync.</p>
+ *
+ * <p>Lookups, filter misses, confirmed revocations and false positives are published as
+ * metrics under {@code security.revocation}, together with the filter's expected
+ * false-positive rate.</p>
+ */
+@Component
+@Slf4j
+public class TokenRevocationService {
+
+    /**
+     * How far back each incremental sync looks beyond the previous one, to tolerate clock skew between nodes.
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private static final LocalDateTime NEVER_SYNCED = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String GATE = "Token revocation filter";
+
+    private final int expectedInsertions;
+
+    private final double falsePositiveRate;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final ReadinessGate readinessGate;
+
+    private final Counter filterMisses;
+
+    private final Counter confirmedRevocations;
+
+    private final Counter falsePositives;
+
+    private volatile BloomFilter filter;
+
+    private volatile LocalDateTime lastSync = NEVER_SYNCED;
+
+    // Set once the filter has been built from the deny list, until then it may be incomplete
+    private volatile boolean built;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  ReadinessGate readinessGate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.revocation.expected-insertions:100000}") int expectedInsertions,
+                                  @Value("${security.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.readinessGate = readinessGate;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        // Sized like the real filter, so tokens revoked before the first build do not saturate it
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        readinessGate.block(GATE, "not built yet");
+        this.filterMisses = Counter.builder("security.revocation.filter.misses")
+                .description("Revocation checks answered by the Bloom filter alone")
+                .register(meterRegistry);
+        this.confirmedRevocations = Counter.builder("security.revocation.revoked")
+                .description("Revocation checks confirmed as revoked by the database")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("security.revocation.filter.false-positives")
+                .description("Bloom filter matches that the database did not confirm")
+                .register(meterRegistry);
+        Gauge.builder("security.revocation.filter.expected-fpp", this, service -> service.filter.expectedFalsePositiveRate())
+                .description("Expected false-positive probability of the current Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("security.revocation.filter.size", this, service -> service.filter.insertions())
+                .description("Revoked token ids held in the Bloom filter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revokes an access token until its expiry time.
+     *
+     * @param tokenId   the token's {@code jti} claim
+     * @param userId    the user the token was issued to
+     * @param expiresAt the token's expiry time
+     */
+    public void revoke(String tokenId, String userId, Instant expiresAt) {
+        if (tokenId == null) {
+            return;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+                .id(tokenId)
+                .userId(userId)
+                .revokedAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                .build());
+        filter.put(tokenId);
+    }
+
+    /**
+     * Revokes every access token of the user that carries the given token version.
+     *
+     * <p>Used by logout from all devices. The stored token version already rejects older tokens
+     * when the principal is loaded from the database, but in stateless principal mode the stored
+     * version is never read; the filter checks this deny-list entry instead. The entry only has
+     * to live as long as the tokens issued before the logout.</p>
+     *
+     * @param userId       the user whose tokens are revoked
+     * @param tokenVersion the token version carried by the revoked tokens
+     * @param expiresAt    when the last token with this version expires
+     */
+    public void revokeTokenVersion(String userId, long tokenVersion, Instant expiresAt) {
+        revoke(tokenVersionKey(userId, tokenVersion), userId, expiresAt);
+    }
+
+    /**
+     * Checks whether the tokens of the user carrying the given token version have been revoked.
+     *
+     * @param userId       the token's subject
+     * @param tokenVersion the token's token version claim
+     * @return true if the token version is revoked
+     */
+    public boolean isTokenVersionRevoked(String userId, long tokenVersion) {
+        return isRevoked(tokenVersionKey(userId, tokenVersion));
+    }
+
+    // Shares the deny list with token ids, which are UUIDs and cannot collide with this format
+    private static String tokenVersionKey(String userId, long tokenVersion) {
+        return "tv:" + userId + ":" + tokenVersion;
+    }
+
+    /**
+     * Checks whether the token with the given id has been revoked.
+     *
+     * @param tokenId the token's {@code jti} claim, may be null for tokens issued without one
+     * @return true if the token is revoked
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        if (!built) {
+            return revokedTokenRepository.existsById(tokenId);
+        }
+        if (!filter.mightContain(tokenId)) {
+            filterMisses.increment();
+            return false;
+        }
+        if (revokedTokenRepository.existsById(tokenId)) {
+            confirmedRevocations.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Adds the entries revoked on any node since the previous sync to the local filter.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.sync-interval:PT10S}",
+            initialDelayString = "${security.revocation.sync-interval:PT10S}")
+    public void syncIncremental() {
+        if (!built) {
+            initialize();
+            return;
+        }
+        LocalDateTime syncStartedAt = LocalDateTime.now();
+        LocalDateTime since = lastSync.equals(NEVER_SYNCED) ? lastSync : lastSync.minus(SYNC_OVERLAP);
+
+        List<RevokedToken> revoked = revokedTokenRepository.findByRevokedAtAfter(since);
+        BloomFilter current = filter;
+        revoked.forEach(token -> current.put(token.getId()));
+
+        lastSync = syncStartedAt;
+        if (!revoked.isEmpty()) {
+            log.debug("Added {} revoked tokens to the revocation filter", revoked.size());
+        }
+    }
+
+    /**
+     * Builds the filter for the first time once the application has started.
+     *
+     * <p>A failure is logged rather than thrown, so an unavailable database does not stop the
+     * application from starting. The build is then retried by {@link #syncIncremental()}.</p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Could not build the revocation filter, retrying with the next sync: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the filter from all non-expired deny-list entries.
+     *
+     * <p>The new filter is sized for the current number of entries and swapped in atomically,
+     * so lookups are never blocked while the rebuild runs.</p>
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.rebuild-interval:PT1H}",
+            initialDelayString = "${security.revocation.rebuild-interval:PT1H}")
+    public void rebuild() {
+        LocalDateTime rebuildStartedAt = LocalDateTime.now();
+        long count = revokedTokenRepository.count();
+        BloomFilter rebuilt = new BloomFilter((int) Math.max(expectedInsertions, count * 2), falsePositiveRate);
+
+        try (Stream<RevokedToken> revoked = revokedTokenRepository.findByExpiresAtAfter(rebuildStartedAt)) {
+            revoked.forEach(token -> rebuilt.put(token.getId()));
+        }
+
+        filter = rebuilt;
+        lastSync = rebuildStartedAt;
+        built = true;
+        // Pick up anything revoked while the rebuild was streaming
+        syncIncremental();
+        log.info("Revocation filter rebuilt with {} entries", rebuilt.insertions());
+        readinessGate.release(GATE);
+    }
+}
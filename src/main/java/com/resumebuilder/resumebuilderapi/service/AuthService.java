@@ -4,46 +4,126 @@ import com.resumebuilder.resumebuilderapi.document.User;
 import com.resumebuilder.resumebuilderapi.dto.AuthResponse;
 import com.resumebuilder.resumebuilderapi.dto.LoginRequest;
 import com.resumebuilder.resumebuilderapi.dto.RegisterRequest;
+import com.resumebuilder.resumebuilderapi.exception.InvalidTokenException;
 import com.resumebuilder.resumebuilderapi.exception.ResourceExistsException;
 import com.resumebuilder.resumebuilderapi.repository.UserRepository;
+import com.resumebuilder.resumebuilderapi.security.AuthenticatedPrincipalCache;
+import com.resumebuilder.resumebuilderapi.security.LoginThrottle;
+import com.resumebuilder.resumebuilderapi.security.TokenRevocationService;
 import com.resumebuilder.resumebuilderapi.util.JwtUtil;
-import lombok.RequiredArgsConstructor;
+import com.resumebuilder.resumebuilderapi.util.VerificationTokenUtil;
+import com.resumebuilder.resumebuilderapi.util.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AuthService  {
 
-    // TODO: Base URL from application.properties file to form the complete verification link
-    @Value("${app.base.url:http://localhost:8080/}" )
-    private String appBaseUrl;
+    private static final Duration VERIFICATION_VALIDITY = Duration.ofHours(24);
+
+    private static final String SUPPRESSED_COALESCED = "coalesced";
+
+    private static final String SUPPRESSED_COOLDOWN = "cooldown";
 
     // TODO: Dependencies injection
     @Autowired
     private final UserRepository userRepository;
 
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
 
-    private final PasswordEncoder passwordEncoder;
+    private final VerificationEmailComposer verificationEmailComposer;
+
+    // Runs BCrypt on a bounded pool instead of the request thread
+    private final PasswordHashingService passwordHashingService;
 
     private final JwtUtil jwtUtil;
 
+    private final VerificationTokenUtil verificationTokenUtil;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final RefreshTokenService refreshTokenService;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    private final LoginThrottle loginThrottle;
+
+    // Every method that changes a user must invalidate the cached principal
+    private final AuthenticatedPrincipalCache principalCache;
+
+    private final Counter coalescedResends;
+
+    private final Counter cooldownResends;
+
+    // Minimum time between two verification emails to the same user
+    @Value("${app.verification.resend-cooldown:60s}")
+    private Duration resendCooldown;
+
+    // A resend reuses the current link if it stays valid for at least this long
+    @Value("${app.verification.resend-min-remaining-validity:1h}")
+    private Duration resendMinRemainingValidity;
+
+    // Resends in progress on this node, keyed by the normalized email
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlightResends = new ConcurrentHashMap<>();
+
+    public AuthService(UserRepository userRepository,
+                       EmailOutboxService emailOutboxService,
+                       VerificationEmailComposer verificationEmailComposer,
+                       PasswordHashingService passwordHashingService,
+                       JwtUtil jwtUtil,
+                       VerificationTokenUtil verificationTokenUtil,
+                       MongoTemplate mongoTemplate,
+                       RefreshTokenService refreshTokenService,
+                       TokenRevocationService tokenRevocationService,
+                       LoginThrottle loginThrottle,
+                       AuthenticatedPrincipalCache principalCache,
+                       MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.emailOutboxService = emailOutboxService;
+        this.verificationEmailComposer = verificationEmailComposer;
+        this.passwordHashingService = passwordHashingService;
+        this.jwtUtil = jwtUtil;
+        this.verificationTokenUtil = verificationTokenUtil;
+        this.mongoTemplate = mongoTemplate;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.loginThrottle = loginThrottle;
+        this.principalCache = principalCache;
+        this.coalescedResends = suppressedResends(meterRegistry, SUPPRESSED_COALESCED);
+        this.cooldownResends = suppressedResends(meterRegistry, SUPPRESSED_COOLDOWN);
+    }
+
     /*
     This method is used to send response to the client while registering or logging in
     It accepts user as an argument and return the AuthResponse
     The reponse is build using the following attributes of the user
+    It only reads the user, so it is static and package-private for AuthResponseBenchmark
      */
     // TODO: Method to send the reponse
-    private AuthResponse toResponse(User newUser) {
+    static AuthResponse toResponse(User newUser) {
         return AuthResponse.builder()
                 .id(newUser.getId())
                 .name(newUser.getName())
@@ -60,81 +140,78 @@ public class AuthService  {
     This method is used to document the incoming user during user registration
     It is used to build the object of User and map it to document to save in db
     It returns a User and accepts @RequestBody request to build the user
+    The id is assigned up front because the signed verification token contains it
      */
     // TODO: Method to build the user to document in order to map to db
     private User toDocument (RegisterRequest request) {
-        return User.builder()
+        User user = User.builder()
+                .id(new ObjectId().toHexString())
                 .name(request.getName())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHashingService.encode(request.getPassword()))
                 .profileImageUrl(request.getProfileImageUrl())
                 .subscriptionPlan("Basic")
                 .emailVerified(false)
-                .verificationToken(UUID.randomUUID().toString())
-                .verificationExpires(LocalDateTime.now().plusHours(24))
+                .lastVerificationSentAt(LocalDateTime.now())
                 .build();
+        assignVerificationToken(user);
+        return user;
+    }
+
+    /*
+    This method gives the user a new signed verification token valid for 24 hours
+     */
+    private void assignVerificationToken(User user) {
+        Instant expiresAt = Instant.now().plus(VERIFICATION_VALIDITY);
+        user.setVerificationToken(verificationTokenUtil.generate(user.getId(), expiresAt));
+        user.setVerificationExpires(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()));
     }
 
     /*
     The method sendVerificationEmail() is used to send the verification link to the user's registered email address
-    It forms the link and html content to be delivered to the user
+    It forms the link and renders the html and plain-text content from the 'verify-email' template
+    The email is queued in the outbox and sent by EmailOutboxWorker, so the mail server latency is not part of the request
      */
     // TODO: Method to send verification email
     private void sendVerificationEmail(User newUser) {
         log.info("Inside AuthService - sendVerificationEmail(): {}", newUser);
          try {
 
-             // TODO: Form the verification link
-            String link = appBaseUrl + "api/auth/verify-email?token="+newUser.getVerificationToken();
-
-            // TODO: Form the HTML to be shown on user's mail
-             String html = "<div style='font-family:sans-serif;'>" +
-                     "<h2>Verify your email</h2>" +
-                     "<p>Hi " + newUser.getName() + ", please confirm your email to activate your account.</p>" +
-                     "<p>" +
-                     "<a href='" + link + "' " +
-                     "style='display:inline-block; padding:10px 16px; background:#6366f1; color:#fff; border-radius:6px; text-decoration:none;'>" +
-                     "Verify Email</a>" +
-                     "</p>" +
-                     "<p>Or copy this link: " + link + "</p>" +
-                     "<p>This link expires in 24 hours.</p>" +
-                     "</div>";
-
-
-             // TODO: Send the email
-             emailService.sendHtmlEmail(newUser.getEmail(), "Verify your email", html);
+             // TODO: Form the link and render the email, then queue it in the outbox
+             emailOutboxService.enqueue(verificationEmailComposer.compose(newUser));
 
          } catch (Exception e) {
-             // incase error occurred during sending email
+             // incase error occurred during queueing the email
              log.error("Exception occured at sendVerification(): {}", e.getMessage());
-             throw new RuntimeException("Failed to send verification email: " + e.getMessage());
+             throw new RuntimeException("Failed to queue verification email: " + e.getMessage());
          }
     }
 
     /*
     This is register() method to register new user
     @RequestBody request is received as parameter which contains the attributes of a user
-    First check the user is already registered or not in db using email, if registered, then throw the exception using global exeception handler
-    Now document the request into the new user and save the user in db
-    Then send the verification link to activate the user and set isEmailVerified field to true in db
+    Document the request into the new user and insert the user in db with a single write
+    If the email is already registered, the unique index on email rejects the insert and the exception is thrown using global exeception handler
+    Then queue the verification link in the email outbox
+    The user and the outbox message are written in one transaction, so a user is never stored without its verification email
     Now return the response.
      */
     // TODO: Method to register new user
+    @Transactional
     public AuthResponse register (RegisterRequest request) {
         log.info("Inside AuthService: register() {}", request);
 
-        // TODO: If user already exists with same email id
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new ResourceExistsException("User already exists with this email");
-        }
-
-        // TODO: If user is not not already registered, save the request into a new user
+        // TODO: Build the new user from the request
         User newUser = toDocument(request);
 
-        // TODO: Save the user
-        userRepository.save(newUser);
+        // TODO: Insert the user, the unique index on email rejects an already registered email
+        try {
+            userRepository.insert(newUser);
+        } catch (DuplicateKeyException e) {
+            throw new ResourceExistsException("User already exists with this email");
+        }
 
-        // TODO: Send the verification email
+        // TODO: Queue the verification email, a failure rolls back the insert so the registration can be retried
         sendVerificationEmail(newUser);
 
         // TODO: Return the response
@@ -145,63 +222,84 @@ public class AuthService  {
 
 
     /*
-    This method is used to verify the email and it accepts a json web token
-    The token will be verified by the backend
-    In case verification token is expired, it will throw an exception that verification token is expired
-    If the token is successfully verified, the emailVerified field will be set to true
-    Finally user will be saved in db
+    This method is used to verify the email and it accepts the signed verification token from the link
+    Forged, malformed and expired tokens are rejected from the signature and expiry inside the token, without any db access
+    A valid token is then applied with a single conditional findAndModify by id: the stored token must still be this one
+    (a newer link or a completed verification replaces it) and must not be expired
+    It sets emailVerified to true and removes the token fields, only the changed fields are written
+    Because the condition and the update are one atomic operation, a concurrent resend-verification cannot be lost or overwritten
      */
     // TODO: Method to verify email
     public void verifyEmail (String token) {
         log.info("Inside AuthService: verifyEmail(): {}", token);
 
-        // TODO: Check if the user is registered by email or not
-        User user = userRepository.findByVerificationToken(token).orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-
-        // TODO: Exception if token expired
-        if (user.getVerificationExpires() != null && user.getVerificationExpires().isBefore(LocalDateTime.now())) {
+        // TODO: Check the signature and expiry of the token before touching the db
+        VerificationTokenUtil.VerificationClaims claims = verificationTokenUtil.parse(token)
+                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
+        if (claims.isExpiredAt(Instant.now())) {
             throw new RuntimeException("Verification token is expired. Please request new one.");
         }
 
-        // TODO: Set the emailVerified field to true
-        user.setEmailVerified(true);
-        user.setVerificationToken(null);
-        user.setVerificationExpires(null);
+        // TODO: Verify the user in one round trip, only if this is still the user's current token
+        LocalDateTime now = LocalDateTime.now();
+        Query pending = Query.query(Criteria.where("_id").is(claims.userId())
+                .and("verificationToken").is(token)
+                .and("verificationExpires").gt(now));
+        pending.fields().include("_id");
+        Update verify = new Update()
+                .set("emailVerified", true)
+                .set("updatedAt", now)
+                .unset("verificationToken")
+                .unset("verificationExpires");
+        User user = mongoTemplate.findAndModify(pending, verify, User.class);
+
+        // TODO: Exception if the link was replaced by a newer one or already used
+        if (user == null) {
+            throw new RuntimeException("Invalid or expired token");
+        }
 
-        // TODO: Save the user
-        userRepository.save(user);
+        // TODO: Drop the cached principal so the verified state is visible immediately
+        principalCache.invalidate(user.getId());
     }
 
     /*
-    this is login() method which accepts @RequestBody request as a parameter
+    this is login() method which accepts @RequestBody request and the caller's ip address as parameters
     @RequestBody request contains two fields, email and password
+    Reject the attempt if the email or ip address is over its login attempt limit
     Fetch the exisiting user from db using email
     Match the password
     Check the email is verified or not
     Generate the JWT token and return the response
      */
     // TODO: Method to login the user
-    public AuthResponse login(LoginRequest request) {
+    public AuthResponse login(LoginRequest request, String clientIp) {
+
+        // TODO: Reject callers over their attempt limit before any db or hashing work
+        loginThrottle.checkLoginAttempt(request.getEmail(), clientIp);
 
-        // TODO: Check the user exists or not in db
-        User existingUser = userRepository.findByEmail(request.getEmail())
+        // TODO: Check the user exists or not in db, only the fields needed for login are read
+        User existingUser = userRepository.findLoginUserByEmail(request.getEmail())
                 .orElseThrow(()-> new UsernameNotFoundException("Invalid email or password"));
 
         // TODO: Match the password
-        if (!passwordEncoder.matches(request.getPassword(), existingUser.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), existingUser.getPassword())) {
             throw  new UsernameNotFoundException("Invalid email or password");
         }
+
+        // TODO: Rehash the password if it was stored with an outdated algorithm or work factor
+        upgradePasswordHash(existingUser, request.getPassword());
         // TODO: Check email is verified or not
         if(!existingUser.getEmailVerified()) {
             throw new RuntimeException("Please verify your email before loggin in");
         }
 
         // TODO: Generate the JWT token
-        String token = jwtUtil.genrateToken(existingUser.getId());
+        String token = jwtUtil.genrateToken(existingUser);
 
         // TODO: Generate the response
         AuthResponse response = toResponse(existingUser);
         response.setToken(token);
+        response.setRefreshToken(refreshTokenService.issue(existingUser));
 
         // TODO: Return the response
         return response;
@@ -209,31 +307,195 @@ public class AuthService  {
 
     }
 
+    /*
+    This method replaces the stored hash with one using the current algorithm and work factor
+    It runs only after a successful match, when the raw password is known
+    Only the password field is updated, and a failure here never fails the login
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        if (!passwordHashingService.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            String upgradedHash = passwordHashingService.encode(rawPassword);
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(user.getId()).and("password").is(user.getPassword())),
+                    Update.update("password", upgradedHash),
+                    User.class);
+            user.setPassword(upgradedHash);
+            principalCache.invalidate(user.getId());
+        } catch (Exception e) {
+            log.warn("Failed to upgrade password hash for user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    /*
+    This method exchanges a refresh token for a new short-lived access token and a new refresh token
+    No password check happens here, so refreshing costs no BCrypt work
+    If the user's tokenVersion was bumped after the refresh token was issued, the refresh is rejected
+     */
+    // TODO: Method to refresh the access token
+    public AuthResponse refresh(String refreshToken) {
+
+        // TODO: Rotate the refresh token, this rejects used, expired and unknown tokens
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+
+        // TODO: Load the current state of the user, without the password hash
+        User user = userRepository.findPrincipalById(rotation.userId())
+                .orElseThrow(() -> new InvalidTokenException("Invalid or expired refresh token"));
+
+        // TODO: Reject refresh tokens issued before the last token version bump
+        long currentVersion = user.getTokenVersion() != null ? user.getTokenVersion() : 0L;
+        if (rotation.tokenVersion() < currentVersion) {
+            refreshTokenService.revokeAll(user.getId());
+            throw new InvalidTokenException("Session is no longer valid, please log in again");
+        }
+
+        // TODO: Generate the response
+        AuthResponse response = toResponse(user);
+        response.setToken(jwtUtil.genrateToken(user));
+        response.setRefreshToken(rotation.refreshToken());
+        return response;
+    }
+
 
     /*
     This method is used to send the reverification link to the user's email address
-    Following steps are mentioned
+    Concurrent resends for the same email on this node collapse into one operation, the others wait for its outcome
+    Across nodes a cooldown is enforced atomically in the db: lastVerificationSentAt is only moved forward
+    when the previous email is older than 'app.verification.resend-cooldown'
+    A resend within the cooldown, or one joining an in-flight resend, succeeds without sending again
+    and is counted in 'app.verification.resend.suppressed'
      */
     // TODO: Method to send verification link
     public void resendVerification(String email) {
 
-        // TODO: Fetch the user account by email
-        User user = userRepository.findByEmail(email).orElseThrow(()-> new RuntimeException("User not found"));
+        // TODO: Join an in-flight resend for the same email instead of starting another one
+        String key = email.trim().toLowerCase(Locale.ROOT);
+        CompletableFuture<Void> resend = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = inFlightResends.putIfAbsent(key, resend);
+        if (inFlight != null) {
+            coalescedResends.increment();
+            try {
+                inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+            }
+            return;
+        }
+
+        try {
+            doResendVerification(email);
+            resend.complete(null);
+        } catch (RuntimeException e) {
+            resend.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightResends.remove(key, resend);
+        }
+    }
+
+    private void doResendVerification(String email) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // TODO: Claim the resend atomically, only if the user is unverified and outside the cooldown
+        Query claimable = Query.query(Criteria.where("email").is(email)
+                .and("emailVerified").is(false)
+                .orOperator(
+                        Criteria.where("lastVerificationSentAt").exists(false),
+                        Criteria.where("lastVerificationSentAt").lt(now.minus(resendCooldown))));
+        claimable.fields().exclude("password");
+        User user = mongoTemplate.findAndModify(claimable, Update.update("lastVerificationSentAt", now),
+                FindAndModifyOptions.options().returnNew(true), User.class);
+
+        // TODO: Nothing claimed: the user does not exist, is verified, or was sent an email recently
+        if (user == null) {
+            Query byEmail = Query.query(Criteria.where("email").is(email));
+            byEmail.fields().include("emailVerified");
+            User existing = mongoTemplate.findOne(byEmail, User.class);
+            if (existing == null) {
+                throw new RuntimeException("User not found");
+            }
+            if (Boolean.TRUE.equals(existing.getEmailVerified())) {
+                throw new RuntimeException("User is already verified");
+            }
+            cooldownResends.increment();
+            return;
+        }
 
-        // TODO: Check the email is verified or not
-        if (user.getEmailVerified()) {
-            throw new RuntimeException("User is already verified");
+        try {
+            // TODO: Reuse the current token while it is valid long enough, otherwise store a new one (token fields only)
+            if (user.getVerificationToken() == null || user.getVerificationExpires() == null
+                    || user.getVerificationExpires().isBefore(now.plus(resendMinRemainingValidity))) {
+                assignVerificationToken(user);
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(user.getId())),
+                        new Update()
+                                .set("verificationToken", user.getVerificationToken())
+                                .set("verificationExpires", user.getVerificationExpires()),
+                        User.class);
+                principalCache.invalidate(user.getId());
+            }
+
+            // TODO: Resend the verification email
+            sendVerificationEmail(user);
+        } catch (RuntimeException e) {
+            // Release the cooldown so the user can retry right away
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(user.getId()).and("lastVerificationSentAt").is(now)),
+                    new Update().unset("lastVerificationSentAt"), User.class);
+            throw e;
         }
+    }
+
+    private static Counter suppressedResends(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("app.verification.resend.suppressed")
+                .tag("reason", reason)
+                .description("Resend-verification requests that did not send another email")
+                .register(meterRegistry);
+    }
+
+    /*
+    This method logs out the current session
+    The access token is added to the deny list until it expires and the refresh token family is deleted
+     */
+    // TODO: Method to logout
+    public void logout(String accessToken, String refreshToken) {
+
+        // TODO: Revoke the access token
+        VerifiedToken verified = jwtUtil.verifyToken(accessToken)
+                .orElseThrow(() -> new InvalidTokenException("Invalid or expired token"));
+        tokenRevocationService.revoke(verified.tokenId(), verified.userId(), verified.expiresAt());
 
-        // TODO: Set the new verification token and expires time
-        user.setVerificationToken(UUID.randomUUID().toString());
-        user.setVerificationExpires(LocalDateTime.now().plusHours(24));
+        // TODO: Revoke the refresh token family
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revoke(refreshToken);
+        }
+    }
 
-        // TODO: Update the user
-        userRepository.save(user);
+    /*
+    This method revokes every session of the user
+    Bumping tokenVersion rejects the access tokens issued earlier when the principal is loaded from the database,
+    the previous version is also put on the deny list until those tokens expire, which covers stateless principal mode
+    Other nodes pick up the deny-list entry with the next revocation sync (security.revocation.sync-interval)
+    All refresh tokens are deleted
+     */
+    // TODO: Method to logout from all devices
+    public void logoutAll(String userId) {
+
+        // TODO: Bump the token version, only that field is written so concurrent updates of the user are kept
+        Query byId = Query.query(Criteria.where("_id").is(userId));
+        byId.fields().include("tokenVersion");
+        User previous = mongoTemplate.findAndModify(byId, new Update().inc("tokenVersion", 1L), User.class);
+        if (previous == null) {
+            throw new RuntimeException("User not found");
+        }
+        principalCache.invalidate(userId);
 
-        // TODO: Resend the verification email
-        sendVerificationEmail(user);
+        // TODO: Revoke the access tokens carrying the previous version
+        long previousVersion = previous.getTokenVersion() != null ? previous.getTokenVersion() : 0L;
+        tokenRevocationService.revokeTokenVersion(userId, previousVersion,
+                Instant.now().plus(jwtUtil.getAccessTokenValidity()));
 
+        // TODO: Delete all refresh tokens
+        refreshTokenService.revokeAll(userId);
     }
-}
\ No newline at end of file
+}
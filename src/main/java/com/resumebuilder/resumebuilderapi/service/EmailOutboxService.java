@@ -0,0 +1,61 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.resumebuilder.resumebuilderapi.document.EmailOutboxMessage;
+import com.resumebuilder.resumebuilderapi.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+This service puts emails into the outbox collection instead of sending them directly
+The EmailOutboxWorker sends them in the background with retries
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    /*
+    This method queues a single html email to be sent as soon as possible
+     */
+    public EmailOutboxMessage enqueue(String to, String subject, String htmlContent) {
+        return enqueue(newMessage(to, subject, htmlContent));
+    }
+
+    /*
+    This method queues a single prepared message, e.g. one with a plain-text alternative
+     */
+    public EmailOutboxMessage enqueue(EmailOutboxMessage message) {
+        log.info("Inside EmailOutboxService - enqueue(): {}, {}", message.getTo(), message.getSubject());
+        return emailOutboxRepository.insert(message);
+    }
+
+    /*
+    This method queues many emails with a single bulk insert
+     */
+    public List<EmailOutboxMessage> enqueueAll(List<EmailOutboxMessage> messages) {
+        LocalDateTime now = LocalDateTime.now();
+        messages.forEach(message -> {
+            message.setStatus(EmailOutboxMessage.PENDING);
+            message.setAttempts(0);
+            message.setNextAttemptAt(now);
+        });
+        return emailOutboxRepository.insert(messages);
+    }
+
+    static EmailOutboxMessage newMessage(String to, String subject, String htmlContent) {
+        return EmailOutboxMessage.builder()
+                .to(to)
+                .subject(subject)
+                .htmlContent(htmlContent)
+                .status(EmailOutboxMessage.PENDING)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+}
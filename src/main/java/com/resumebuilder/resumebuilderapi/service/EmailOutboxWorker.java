@@ -0,0 +1,277 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.resumebuilder.resumebuilderapi.document.EmailOutboxMessage;
+import com.resumebuilder.resumebuilderapi.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+This worker drains the email outbox in the background
+Every poll it claims a batch of due messages, splits the batch across a small pool of sender threads and records the outcome of each message
+Each sender thread sends its chunk over one pooled SMTP connection (EmailService.sendAll)
+The scheduler thread only claims the batch and hands it over, it never waits for the mail server,
+so a slow SMTP server does not hold up the other scheduled jobs; the next poll is skipped while a batch is in flight
+Claiming stamps a batch id on up to batch-size due messages with one updateMulti and reads the batch back by that id,
+the update re-checks that each message is still due, so several nodes can run the worker without sending a message twice
+Every claim counts as an attempt, a failed message is retried with exponential backoff and after the maximum number
+of attempts it is moved to DEAD (dead letter), also when the worker died or hung while sending it
+ */
+@Component
+@Slf4j
+public class EmailOutboxWorker {
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${app.mail.outbox.max-backoff:1h}")
+    private Duration maxBackoff;
+
+    // How long a claimed message stays locked before another worker may claim it again
+    @Value("${app.mail.outbox.lease:5m}")
+    private Duration lease;
+
+    // How long sent and dead messages are kept before Mongo removes them
+    @Value("${app.mail.outbox.retention:7d}")
+    private Duration retention;
+
+    private final EmailService emailService;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ExecutorService senders;
+
+    private final int senderCount;
+
+    // Set while a claimed batch is being sent, polls are skipped until it completes
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final Counter sent;
+
+    private final Counter failed;
+
+    private final Counter deadLettered;
+
+    // Refreshed on a schedule, a metrics scrape must not run a count query
+    private final AtomicLong pending = new AtomicLong();
+
+    public EmailOutboxWorker(EmailService emailService,
+                             EmailOutboxRepository emailOutboxRepository,
+                             MongoTemplate mongoTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.mail.outbox.senders:2}") int senderCount) {
+        this.emailService = emailService;
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.senderCount = Math.max(1, senderCount);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(this.senderCount, runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sent = Counter.builder("app.mail.outbox.sent")
+                .description("Outbox emails sent")
+                .register(meterRegistry);
+        this.failed = Counter.builder("app.mail.outbox.failed")
+                .description("Outbox send attempts that failed and will be retried")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("app.mail.outbox.dead")
+                .description("Outbox emails given up after the maximum number of attempts")
+                .register(meterRegistry);
+        Gauge.builder("app.mail.outbox.pending", pending, AtomicLong::get)
+                .description("Outbox emails waiting to be sent")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.metrics-refresh-interval:PT30S}")
+    public void refreshMetrics() {
+        pending.set(emailOutboxRepository.countByStatus(EmailOutboxMessage.PENDING));
+    }
+
+    /*
+    This method claims due messages and hands them to the sender threads without waiting for them
+    A poll that finds the previous batch still in flight does nothing, so batches never overlap
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:PT2S}")
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        List<EmailOutboxMessage> batch;
+        try {
+            batch = claimBatch();
+        } catch (RuntimeException e) {
+            draining.set(false);
+            throw e;
+        }
+        if (batch.isEmpty()) {
+            draining.set(false);
+            return;
+        }
+
+        // TODO: Split the batch into one chunk per sender thread, the next poll may claim once all of them are done
+        int chunkSize = (batch.size() + senderCount - 1) / senderCount;
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += chunkSize) {
+            List<EmailOutboxMessage> chunk = batch.subList(from, Math.min(batch.size(), from + chunkSize));
+            chunks.add(CompletableFuture.runAsync(() -> send(chunk), senders));
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        log.error("Sending an outbox batch failed", error);
+                    }
+                    draining.set(false);
+                });
+    }
+
+    private List<EmailOutboxMessage> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+
+        // TODO: Pick the ids of the next due messages, only the _id is read
+        Query candidates = new Query(due(now)).with(Sort.by("nextAttemptAt")).limit(batchSize);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, EmailOutboxMessage.class).stream()
+                .map(EmailOutboxMessage::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // TODO: Claim them in one update, messages another node claimed in the meantime are no longer due and are skipped
+        String claimId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(new Query(new Criteria().andOperator(Criteria.where("_id").in(ids), due(now))),
+                new Update()
+                        .set("status", EmailOutboxMessage.SENDING)
+                        .set("lockedUntil", now.plus(lease))
+                        .set("claimId", claimId)
+                        .inc("attempts", 1),
+                EmailOutboxMessage.class);
+
+        // TODO: Read the claimed batch back, messages whose worker crashed too often are dead-lettered instead of sent
+        List<EmailOutboxMessage> batch = new ArrayList<>();
+        for (EmailOutboxMessage message : mongoTemplate.find(Query.query(Criteria.where("claimId").is(claimId)),
+                EmailOutboxMessage.class)) {
+            if (message.getAttempts() > maxAttempts) {
+                markFailed(message, new IllegalStateException("lease expired, the previous attempt did not complete"));
+            } else {
+                batch.add(message);
+            }
+        }
+        return batch;
+    }
+
+    private static Criteria due(LocalDateTime now) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(EmailOutboxMessage.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(EmailOutboxMessage.SENDING).and("lockedUntil").lt(now));
+    }
+
+    // Only the claim that is still current may record an outcome, after an expired lease another worker owns the message
+    private static Query claimed(EmailOutboxMessage message) {
+        return Query.query(Criteria.where("_id").is(message.getId()).and("claimId").is(message.getClaimId()));
+    }
+
+    // Sends a chunk over one pooled SMTP connection and records the outcome of every message
+    private void send(List<EmailOutboxMessage> chunk) {
+        List<EmailService.OutgoingEmail> emails = chunk.stream()
+                .map(message -> new EmailService.OutgoingEmail(message.getTo(), message.getSubject(),
+                        message.getHtmlContent(), message.getTextContent()))
+                .toList();
+        List<EmailService.SendResult> results;
+        try {
+            results = emailService.sendAll(emails);
+        } catch (Exception e) {
+            chunk.forEach(message -> markFailed(message, e));
+            return;
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            EmailService.SendResult result = results.get(i);
+            if (result.isSent()) {
+                markSent(chunk.get(i));
+            } else {
+                markFailed(chunk.get(i), result.error());
+            }
+        }
+    }
+
+    private void markSent(EmailOutboxMessage message) {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.updateFirst(claimed(message),
+                new Update()
+                        .set("status", EmailOutboxMessage.SENT)
+                        .set("sentAt", now)
+                        .set("purgeAt", now.plus(retention))
+                        .unset("lockedUntil")
+                        .unset("claimId")
+                        .unset("lastError"),
+                EmailOutboxMessage.class);
+        sent.increment();
+    }
+
+    private void markFailed(EmailOutboxMessage message, Exception error) {
+        LocalDateTime now = LocalDateTime.now();
+        // Already counted when the message was claimed
+        int attempts = message.getAttempts();
+        Update update = new Update()
+                .set("lastError", String.valueOf(error.getMessage()))
+                .unset("lockedUntil")
+                .unset("claimId");
+
+        if (attempts >= maxAttempts) {
+            log.error("Giving up on email {} to {} after {} attempts: {}",
+                    message.getId(), message.getTo(), attempts, error.getMessage());
+            update.set("status", EmailOutboxMessage.DEAD).set("purgeAt", now.plus(retention));
+            deadLettered.increment();
+        } else {
+            log.warn("Sending email {} failed (attempt {}), retrying: {}", message.getId(), attempts, error.getMessage());
+            update.set("status", EmailOutboxMessage.PENDING).set("nextAttemptAt", now.plus(backoff(attempts)));
+            failed.increment();
+        }
+        mongoTemplate.updateFirst(claimed(message), update, EmailOutboxMessage.class);
+    }
+
+    // Exponential backoff: initial, 2x, 4x ... capped at max-backoff
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdown();
+    }
+}
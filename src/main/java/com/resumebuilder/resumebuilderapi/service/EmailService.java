@@ -6,10 +6,14 @@ import lombok.RequiredArgsConstructor;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -20,16 +24,126 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
 
+    // Reused, already authenticated SMTP connections
+    private final SmtpTransportPool transportPool;
+
+    /*
+    An email to be sent with sendAll(), textContent is the optional plain-text alternative
+     */
+    public record OutgoingEmail(String to, String subject, String htmlContent, String textContent) {
+
+        public OutgoingEmail(String to, String subject, String htmlContent) {
+            this(to, subject, htmlContent, null);
+        }
+    }
+
+    /*
+    The outcome of one email of a sendAll() call, error is null when the email was sent
+     */
+    public record SendResult(OutgoingEmail email, Exception error) {
+
+        public boolean isSent() {
+            return error == null;
+        }
+    }
+
     public void sendHtmlEmail(String to, String subject, String htmlContent) throws MessagingException {
-        log.info("Inside EmailService - sendHtmlEmail(): {}, {}, {}",to, subject, htmlContent);
+        log.info("Inside EmailService - sendHtmlEmail(): {}, {}", to, subject);
+        SendResult result = sendAll(List.of(new OutgoingEmail(to, subject, htmlContent))).get(0);
+        if (!result.isSent()) {
+            throw result.error() instanceof MessagingException messagingException
+                    ? messagingException
+                    : new MessagingException(result.error().getMessage(), result.error());
+        }
+    }
+
+    /*
+    This method sends many emails over pooled SMTP connections instead of one connection per email
+    A failure of one email does not stop the others, the result of every email is returned in the same order
+    A connection that reached max-messages-per-connection is handed back and replaced before the next email
+    If the connection breaks while sending an email, it is replaced and that email is tried once more
+     */
+    public List<SendResult> sendAll(List<OutgoingEmail> emails) {
+        log.info("Inside EmailService - sendAll(): {} emails", emails.size());
+        if (!transportPool.isEnabled()) {
+            return sendUnpooled(emails);
+        }
+        List<SendResult> results = new ArrayList<>(emails.size());
+        SmtpTransportPool.PooledTransport transport = null;
+
+        try {
+            for (OutgoingEmail email : emails) {
+                MimeMessage message;
+                try {
+                    message = toMimeMessage(email);
+                } catch (MessagingException e) {
+                    results.add(new SendResult(email, e));
+                    continue;
+                }
+
+                boolean reconnected = false;
+                while (true) {
+                    try {
+                        if (transport != null && !transportPool.hasCapacity(transport)) {
+                            // release() closes a connection that reached its message limit
+                            transportPool.release(transport);
+                            transport = null;
+                        }
+                        if (transport == null) {
+                            transport = transportPool.borrow();
+                        }
+                        transport.transport().sendMessage(message, message.getAllRecipients());
+                        transport.recordSent();
+                        results.add(new SendResult(email, null));
+                        break;
+                    } catch (MessagingException e) {
+                        // A dropped connection is replaced once per email, any other failure only affects this email
+                        if (transport != null && !transport.transport().isConnected() && !reconnected) {
+                            transportPool.invalidate(transport);
+                            transport = null;
+                            reconnected = true;
+                            continue;
+                        }
+                        results.add(new SendResult(email, e));
+                        break;
+                    }
+                }
+            }
+        } finally {
+            if (transport != null) {
+                transportPool.release(transport);
+            }
+        }
+        return results;
+    }
+
+    // Without a pool every email goes through JavaMailSender.send(), which opens its own connection
+    private List<SendResult> sendUnpooled(List<OutgoingEmail> emails) {
+        List<SendResult> results = new ArrayList<>(emails.size());
+        for (OutgoingEmail email : emails) {
+            try {
+                mailSender.send(toMimeMessage(email));
+                results.add(new SendResult(email, null));
+            } catch (MessagingException | MailException e) {
+                results.add(new SendResult(email, e));
+            }
+        }
+        return results;
+    }
+
+    private MimeMessage toMimeMessage(OutgoingEmail email) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
         helper.setFrom(fromEmail);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(htmlContent, true);
-        mailSender.send(message);
-
+        helper.setTo(email.to());
+        helper.setSubject(email.subject());
+        if (email.textContent() != null) {
+            helper.setText(email.textContent(), email.htmlContent());
+        } else {
+            helper.setText(email.htmlContent(), true);
+        }
+        message.saveChanges();
+        return message;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+This engine renders the email templates stored in 'classpath:templates/email'
+
+File naming: <name>[_<language>].<html|txt>, e.g. verify-email.html, verify-email.txt, verify-email_hi.html
+The .html file is the html body and the optional .txt file is the plain-text alternative
+A localized file is used when the requested locale's language matches, otherwise the default file is used
+
+Templates contain {{variable}} placeholders
+All templates are loaded and compiled once at startup into a list of literal and placeholder segments,
+so rendering is a single pass that appends segments into a reused per-thread buffer
+Values are html-escaped in .html templates (e.g. the user's name) and inserted as-is in .txt templates
+ */
+@Service
+@Slf4j
+public class EmailTemplateEngine {
+
+    private static final String TEMPLATE_LOCATION = "classpath*:templates/email/*.*";
+
+    private static final int MAX_BUFFER_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(2048));
+
+    private final Map<String, CompiledTemplate> templates = new HashMap<>();
+
+    /*
+    A rendered email, text is null when the template has no plain-text alternative
+     */
+    public record RenderedEmail(String html, String text) {
+    }
+
+    @PostConstruct
+    void loadTemplates() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(TEMPLATE_LOCATION);
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            if (filename == null || !(filename.endsWith(".html") || filename.endsWith(".txt"))) {
+                continue;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                templates.put(filename, CompiledTemplate.compile(filename, source, filename.endsWith(".html")));
+            }
+        }
+        log.info("Loaded {} email templates", templates.size());
+    }
+
+    /*
+    This method renders the html body and the plain-text alternative of a template
+     */
+    public RenderedEmail render(String name, Locale locale, Map<String, String> variables) {
+        CompiledTemplate html = find(name, locale, "html");
+        if (html == null) {
+            throw new IllegalArgumentException("Email template not found: " + name);
+        }
+        CompiledTemplate text = find(name, locale, "txt");
+        return new RenderedEmail(html.render(variables), text != null ? text.render(variables) : null);
+    }
+
+    private CompiledTemplate find(String name, Locale locale, String extension) {
+        if (locale != null && !locale.getLanguage().isEmpty()) {
+            CompiledTemplate localized = templates.get(name + "_" + locale.getLanguage() + "." + extension);
+            if (localized != null) {
+                return localized;
+            }
+        }
+        return templates.get(name + "." + extension);
+    }
+
+    /*
+    A template compiled into segments: even positions are literal text, odd positions are placeholder names
+     */
+    private record CompiledTemplate(String name, String[] segments, boolean escapeHtml) {
+
+        static CompiledTemplate compile(String name, String source, boolean escapeHtml) {
+            List<String> segments = new ArrayList<>();
+            int position = 0;
+            while (true) {
+                int open = source.indexOf("{{", position);
+                int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+                if (open < 0 || close < 0) {
+                    segments.add(source.substring(position));
+                    break;
+                }
+                segments.add(source.substring(position, open));
+                segments.add(source.substring(open + 2, close).trim());
+                position = close + 2;
+            }
+            return new CompiledTemplate(name, segments.toArray(new String[0]), escapeHtml);
+        }
+
+        String render(Map<String, String> variables) {
+            StringBuilder buffer = BUFFER.get();
+            buffer.setLength(0);
+            for (int i = 0; i < segments.length; i++) {
+                if (i % 2 == 0) {
+                    buffer.append(segments[i]);
+                    continue;
+                }
+                String value = variables.get(segments[i]);
+                if (value == null) {
+                    throw new IllegalArgumentException("Missing value for {{" + segments[i] + "}} in " + name);
+                }
+                if (escapeHtml) {
+                    appendEscaped(buffer, value);
+                } else {
+                    buffer.append(value);
+                }
+            }
+            String rendered = buffer.toString();
+            // Do not keep an unusually large buffer alive on the thread
+            if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+                BUFFER.remove();
+            }
+            return rendered;
+        }
+
+        private static void appendEscaped(StringBuilder buffer, String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&' -> buffer.append("&amp;");
+                    case '<' -> buffer.append("&lt;");
+                    case '>' -> buffer.append("&gt;");
+                    case '"' -> buffer.append("&quot;");
+                    case '\'' -> buffer.append("&#39;");
+                    default -> buffer.append(c);
+                }
+            }
+        }
+    }
+}
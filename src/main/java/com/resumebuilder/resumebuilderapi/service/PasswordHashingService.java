@@ -0,0 +1,216 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.resumebuilder.resumebuilderapi.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+This service runs the password hashing (BCrypt) on its own bounded thread pool instead of on the request threads
+BCrypt is deliberately slow, so a burst of logins or registrations would otherwise occupy every servlet thread
+When the pool and its queue are full the request fails fast with 429 instead of waiting
+Queue depth, active workers, rejections and hash latency are published as metrics under 'security.password.hashing',
+the queue and active gauges are tagged with the pool (interactive or bulk)
+Bulk hashing (e.g. the user import) runs on a second, smaller pool, so an import never takes the workers of interactive logins
+Its queue is bounded as well: when it is full the caller hashes the next password itself, which slows the import down
+instead of queueing every password of a large file (each queued task holds a plaintext password)
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ThreadPoolExecutor bulkExecutor;
+
+    private final Duration timeout;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Timer bulkEncodeTimer;
+
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.password-hashing.threads:0}") int threads,
+                                  @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${security.password-hashing.timeout:10s}") Duration timeout,
+                                  @Value("${security.password-hashing.bulk-threads:0}") int bulkThreads,
+                                  @Value("${security.password-hashing.bulk-queue-capacity:0}") int bulkQueueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeout = timeout;
+
+        // TODO: Default to one worker per CPU core, BCrypt is CPU bound
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // TODO: Default to half of the CPU cores for bulk hashing, with two queued passwords per worker
+        int bulkPoolSize = bulkThreads > 0 ? bulkThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger bulkThreadNumber = new AtomicInteger();
+        this.bulkExecutor = new ThreadPoolExecutor(bulkPoolSize, bulkPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bulkQueueCapacity > 0 ? bulkQueueCapacity : bulkPoolSize * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-bulk-" + bulkThreadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Caller runs, unlike CallerRunsPolicy a task is not silently dropped after shutdown (invokeAll would wait forever)
+                (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Password hashing pool is shut down");
+                    }
+                    task.run();
+                });
+
+        this.encodeTimer = Timer.builder("security.password.hashing.duration")
+                .tag("operation", "encode")
+                .description("Time spent hashing a password")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("security.password.hashing.duration")
+                .tag("operation", "matches")
+                .description("Time spent matching a password against its hash")
+                .register(meterRegistry);
+        this.bulkEncodeTimer = Timer.builder("security.password.hashing.duration")
+                .tag("operation", "bulk-encode")
+                .description("Time spent hashing a password of a bulk request")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("security.password.hashing.rejected")
+                .description("Hashing requests rejected because the pool was saturated")
+                .register(meterRegistry);
+        registerPoolGauges(meterRegistry, "interactive", executor);
+        registerPoolGauges(meterRegistry, "bulk", bulkExecutor);
+    }
+
+    private static void registerPoolGauges(MeterRegistry meterRegistry, String name, ThreadPoolExecutor pool) {
+        Gauge.builder("security.password.hashing.queue", pool, executor -> executor.getQueue().size())
+                .tag("pool", name)
+                .description("Hashing requests waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("security.password.hashing.active", pool, ThreadPoolExecutor::getActiveCount)
+                .tag("pool", name)
+                .description("Workers currently hashing")
+                .register(meterRegistry);
+    }
+
+    /*
+    This method hashes the raw password on the hashing pool
+     */
+    public String encode(String rawPassword) {
+        return submit(() -> timed(encodeTimer, () -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /*
+    This method matches the raw password against the stored hash on the hashing pool
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> timed(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /*
+    This method hashes many raw passwords in parallel on the bulk hashing pool
+    The hashes are returned in the same order as the passwords
+    While the bulk queue is full the calling thread hashes passwords itself, so submitting never runs ahead of the workers
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        List<Callable<String>> tasks = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            tasks.add(() -> timed(bulkEncodeTimer, () -> passwordEncoder.encode(rawPassword)));
+        }
+
+        try {
+            List<String> hashes = new ArrayList<>(tasks.size());
+            for (Future<String> future : bulkExecutor.invokeAll(tasks)) {
+                hashes.add(future.get());
+            }
+            return hashes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /*
+    This method checks whether the stored hash uses an outdated algorithm or work factor
+    It only inspects the hash, so it runs on the calling thread
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private static <T> T timed(Timer timer, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Server is busy, please try again shortly");
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new TooManyRequestsException("Server is busy, please try again shortly");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        bulkExecutor.shutdown();
+    }
+}
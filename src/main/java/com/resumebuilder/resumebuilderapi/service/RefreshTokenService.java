@@ -0,0 +1,132 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.resumebuilder.resumebuilderapi.document.RefreshToken;
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.exception.InvalidTokenException;
+import com.resumebuilder.resumebuilderapi.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/*
+This service issues and rotates the refresh tokens used by 'api/auth/refresh'
+A refresh token can be used exactly once, every use returns a new token of the same family
+Presenting a token that was already used means it was stolen or replayed, so the whole family is revoked
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    // TODO: Refresh token lifetime in milliseconds (default 30 days)
+    @Value("${jwt.refresh.expiration:2592000000}")
+    private Long refreshExpiration;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    /*
+    Result of a successful rotation: the user the token belongs to and the new raw refresh token
+     */
+    public record Rotation(String userId, Long tokenVersion, String refreshToken) {
+    }
+
+    /*
+    This method issues a new refresh token for the user, starting a new token family
+    It returns the raw token, only its hash is stored
+     */
+    public String issue(User user) {
+        return issue(user.getId(), user.getTokenVersion(), UUID.randomUUID().toString());
+    }
+
+    /*
+    This method exchanges a refresh token for a new one
+    The token is marked as used atomically, so two concurrent refreshes with the same token cannot both succeed
+    If the token was already used, the whole family is deleted and the caller has to log in again
+     */
+    public Rotation rotate(String rawToken) {
+        String tokenHash = hash(rawToken);
+
+        // TODO: Mark the token as used only if it is unused and not expired
+        Query query = new Query(Criteria.where("tokenHash").is(tokenHash)
+                .and("used").is(false)
+                .and("expiresAt").gt(LocalDateTime.now()));
+        RefreshToken current = mongoTemplate.findAndModify(query,
+                new Update().set("used", true),
+                FindAndModifyOptions.options().returnNew(false),
+                RefreshToken.class);
+
+        if (current == null) {
+            // TODO: Reuse detection, revoke the family if the token exists but was already used
+            refreshTokenRepository.findByTokenHash(tokenHash)
+                    .filter(RefreshToken::getUsed)
+                    .ifPresent(reused -> {
+                        log.warn("Refresh token reuse detected for user {}, revoking token family", reused.getUserId());
+                        refreshTokenRepository.deleteByFamilyId(reused.getFamilyId());
+                    });
+            throw new InvalidTokenException("Invalid or expired refresh token");
+        }
+
+        String next = issue(current.getUserId(), current.getTokenVersion(), current.getFamilyId());
+        return new Rotation(current.getUserId(), current.getTokenVersion(), next);
+    }
+
+    /*
+    This method revokes the refresh token and every other token of its family, e.g. on logout
+     */
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.deleteByFamilyId(token.getFamilyId()));
+    }
+
+    /*
+    This method revokes every refresh token of the user, e.g. after a password change
+     */
+    public void revokeAll(String userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    private String issue(String userId, Long tokenVersion, String familyId) {
+        byte[] bytes = new byte[32];
+        SECURE_RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.insert(RefreshToken.builder()
+                .tokenHash(hash(rawToken))
+                .userId(userId)
+                .familyId(familyId)
+                .tokenVersion(tokenVersion != null ? tokenVersion : 0L)
+                .used(false)
+                .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(refreshExpiration)))
+                .build());
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+This class keeps a small pool of connected and authenticated SMTP transports
+JavaMailSender.send() opens a new connection, does the TLS and AUTH handshake, sends one message and closes the connection
+Reusing a connection skips that handshake for every message after the first
+A connection is closed after max-messages-per-connection messages (many SMTP servers limit this) and after being idle for idle-timeout
+Pooling needs the connection settings of a JavaMailSenderImpl, with any other JavaMailSender (e.g. a test double or a wrapper)
+the pool is disabled and EmailService sends every message through JavaMailSender.send()
+
+Example configuration:
+app.mail.pool.size=4
+app.mail.pool.max-messages-per-connection=100
+app.mail.pool.idle-timeout=30s
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool {
+
+    @Value("${app.mail.pool.size:4}")
+    private int poolSize;
+
+    @Value("${app.mail.pool.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${app.mail.pool.idle-timeout:30s}")
+    private Duration idleTimeout;
+
+    @Value("${app.mail.pool.borrow-timeout:30s}")
+    private Duration borrowTimeout;
+
+    // null when the JavaMailSender is not a JavaMailSenderImpl, pooling is disabled then
+    private final JavaMailSenderImpl mailSender;
+
+    private final BlockingQueue<PooledTransport> idle = new LinkedBlockingQueue<>();
+
+    private final AtomicInteger open = new AtomicInteger();
+
+    public SmtpTransportPool(JavaMailSender mailSender) {
+        this.mailSender = mailSender instanceof JavaMailSenderImpl mailSenderImpl ? mailSenderImpl : null;
+        if (this.mailSender == null) {
+            log.info("{} is not a JavaMailSenderImpl, SMTP connections are not pooled", mailSender.getClass().getName());
+        }
+    }
+
+    /*
+    This method tells whether connections can be borrowed, otherwise messages must be sent with JavaMailSender.send()
+     */
+    public boolean isEnabled() {
+        return mailSender != null;
+    }
+
+    /*
+    This method tells whether the transport may send another message before it has to be replaced
+     */
+    public boolean hasCapacity(PooledTransport transport) {
+        return transport.messagesSent() < maxMessagesPerConnection;
+    }
+
+    /*
+    This method returns a connected transport, reusing an idle one when possible
+    The caller must give it back with release(), or invalidate() it if the connection broke
+     */
+    public PooledTransport borrow() throws MessagingException {
+        if (mailSender == null) {
+            throw new IllegalStateException("SMTP connection pooling needs a JavaMailSenderImpl");
+        }
+        PooledTransport transport = idle.poll();
+        while (transport == null) {
+            if (open.incrementAndGet() <= poolSize) {
+                try {
+                    return connect();
+                } catch (MessagingException | RuntimeException e) {
+                    open.decrementAndGet();
+                    throw e;
+                }
+            }
+            open.decrementAndGet();
+            try {
+                transport = idle.poll(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+            }
+            if (transport == null) {
+                throw new MessagingException("No SMTP connection available within " + borrowTimeout);
+            }
+        }
+        if (!transport.transport().isConnected()) {
+            invalidate(transport);
+            return borrow();
+        }
+        return transport;
+    }
+
+    /*
+    This method gives a healthy transport back to the pool
+    It is closed instead if it reached the message limit
+     */
+    public void release(PooledTransport transport) {
+        if (transport.messagesSent() >= maxMessagesPerConnection || !transport.transport().isConnected()) {
+            invalidate(transport);
+            return;
+        }
+        transport.touch();
+        idle.offer(transport);
+    }
+
+    /*
+    This method closes a transport whose connection is broken or no longer wanted
+     */
+    public void invalidate(PooledTransport transport) {
+        open.decrementAndGet();
+        close(transport);
+    }
+
+    /*
+    This method closes connections that have been idle for longer than idle-timeout
+     */
+    @Scheduled(fixedDelayString = "${app.mail.pool.eviction-interval:PT10S}")
+    public void evictIdle() {
+        long idleBefore = System.nanoTime() - idleTimeout.toNanos();
+        for (PooledTransport transport : idle) {
+            if (transport.lastUsedNanos() - idleBefore < 0 && idle.remove(transport)) {
+                invalidate(transport);
+            }
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        log.debug("Opened SMTP connection to {}:{}", mailSender.getHost(), mailSender.getPort());
+        return new PooledTransport(transport);
+    }
+
+    private static void close(PooledTransport transport) {
+        try {
+            transport.transport().close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        PooledTransport transport;
+        while ((transport = idle.poll()) != null) {
+            invalidate(transport);
+        }
+    }
+
+    /*
+    A pooled SMTP connection with the number of messages it has sent
+     */
+    public static final class PooledTransport {
+
+        private final Transport transport;
+
+        private int messagesSent;
+
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        public Transport transport() {
+            return transport;
+        }
+
+        public int messagesSent() {
+            return messagesSent;
+        }
+
+        public void recordSent() {
+            messagesSent++;
+        }
+
+        long lastUsedNanos() {
+            return lastUsedNanos;
+        }
+
+        void touch() {
+            lastUsedNanos = System.nanoTime();
+        }
+    }
+}
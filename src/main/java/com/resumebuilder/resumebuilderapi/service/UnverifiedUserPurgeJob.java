@@ -0,0 +1,97 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.security.AuthenticatedPrincipalCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+This job removes abandoned sign-ups: accounts that were never verified
+An account is removed once its verification link has been expired for longer than the grace period,
+a resend-verification moves verificationExpires forward and so keeps the account
+The query uses the index on verificationExpires and deletes in batches of ids, so each delete stays small
+and a large backlog does not hold up other writes
+
+Example configuration:
+app.users.unverified-purge.grace-period=7d
+app.users.unverified-purge.batch-size=500
+app.users.unverified-purge.interval=PT1H
+ */
+@Component
+@Slf4j
+public class UnverifiedUserPurgeJob {
+
+    @Value("${app.users.unverified-purge.grace-period:7d}")
+    private Duration gracePeriod;
+
+    @Value("${app.users.unverified-purge.batch-size:500}")
+    private int batchSize;
+
+    // Upper bound of batches per run, the rest is picked up by the next run
+    @Value("${app.users.unverified-purge.max-batches:100}")
+    private int maxBatches;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final AuthenticatedPrincipalCache principalCache;
+
+    private final Counter purged;
+
+    public UnverifiedUserPurgeJob(MongoTemplate mongoTemplate,
+                                  AuthenticatedPrincipalCache principalCache,
+                                  MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.principalCache = principalCache;
+        this.purged = Counter.builder("app.users.unverified.purged")
+                .description("Never verified accounts removed after the grace period")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.unverified-purge.interval:PT1H}",
+            initialDelayString = "${app.users.unverified-purge.interval:PT1H}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+        long total = 0;
+
+        for (int batch = 0; batch < maxBatches; batch++) {
+            // TODO: Select the next batch of ids, only the _id is read
+            Query abandoned = Query.query(Criteria.where("verificationExpires").lt(cutoff).and("emailVerified").is(false))
+                    .with(Sort.by("verificationExpires"))
+                    .limit(batchSize);
+            abandoned.fields().include("_id");
+            List<String> ids = mongoTemplate.find(abandoned, User.class).stream().map(User::getId).toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            // TODO: Delete by id, re-checking the condition in case the user verified or resent in the meantime
+            long deleted = mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)
+                            .and("verificationExpires").lt(cutoff)
+                            .and("emailVerified").is(false)), User.class)
+                    .getDeletedCount();
+            ids.forEach(principalCache::invalidate);
+            total += deleted;
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            purged.increment(total);
+            log.info("Purged {} never verified accounts older than {}", total, gracePeriod);
+        }
+    }
+}
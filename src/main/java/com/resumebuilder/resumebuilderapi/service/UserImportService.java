@@ -0,0 +1,556 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.document.UserImportJob;
+import com.resumebuilder.resumebuilderapi.dto.RegisterRequest;
+import com.resumebuilder.resumebuilderapi.dto.UserImportResult;
+import com.resumebuilder.resumebuilderapi.exception.BadRequestException;
+import com.resumebuilder.resumebuilderapi.exception.ForbiddenException;
+import com.resumebuilder.resumebuilderapi.exception.ResourceNotFoundException;
+import com.resumebuilder.resumebuilderapi.exception.TooManyRequestsException;
+import com.resumebuilder.resumebuilderapi.repository.UserImportJobRepository;
+import com.resumebuilder.resumebuilderapi.util.VerificationTokenUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/*
+This service imports many users at once, e.g. the student accounts sent by a university
+
+The input is either NDJSON (one RegisterRequest json object per line)
+or CSV with a header line naming the columns (email, name, password and optionally profileImageUrl)
+An import runs as a background job: the request body is spooled to a temporary file, a UserImportJob is stored
+and the request returns at once, the admin polls the job for its progress and the final report
+(at the calibrated BCrypt cost a large import takes far longer than any request timeout)
+Jobs run one at a time on a dedicated thread, at most 'app.import.max-queued' wait for their turn
+
+Rows are validated like /register and processed in batches of 'app.import.batch-size':
+ - passwords are hashed in parallel on the bulk hashing pool of PasswordHashingService
+ - the batch is written with one unordered bulk insert, so a conflicting row does not stop the rest
+   (the unique index on email rejects already registered emails and emails repeated in the input)
+ - the verification emails of the inserted users are queued in the outbox with one bulk insert
+A batch that fails as a whole (e.g. the database is briefly unavailable) is reported row by row and the import goes on,
+users whose verification email could not be queued are retried once at the end and otherwise reported
+Only one batch is held in memory, so the input size is not limited by the heap
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportService {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final Duration VERIFICATION_VALIDITY = Duration.ofHours(24);
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // Largest accepted request body, it is spooled to a temporary file
+    @Value("${app.import.max-size:100MB}")
+    private DataSize maxSize;
+
+    // Imports waiting for the running one, further requests are rejected with 429
+    @Value("${app.import.max-queued:4}")
+    private int maxQueued;
+
+    // How long finished jobs and their reports are kept
+    @Value("${app.import.retention:7d}")
+    private Duration retention;
+
+    // Ids of the users allowed to use the admin endpoints, comma separated
+    @Value("${app.admin.user-ids:}")
+    private Set<String> adminUserIds;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final UserImportJobRepository userImportJobRepository;
+
+    private final PasswordHashingService passwordHashingService;
+
+    private final VerificationEmailComposer verificationEmailComposer;
+
+    private final VerificationTokenUtil verificationTokenUtil;
+
+    private final EmailOutboxService emailOutboxService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private ThreadPoolExecutor importExecutor;
+
+    private record Row(int line, RegisterRequest request) {
+    }
+
+    // An imported user whose verification email still has to be queued
+    private record PendingEmail(int line, String email, String userId) {
+    }
+
+    @PostConstruct
+    void init() {
+        importExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueued)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-import");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Interrupts the running import, it stops after the current batch and is marked FAILED
+        importExecutor.shutdownNow();
+    }
+
+    /*
+    This method rejects callers that are not configured as admins
+     */
+    public void requireAdmin(User user) {
+        if (user == null || !adminUserIds.contains(user.getId())) {
+            throw new ForbiddenException("Admin access required");
+        }
+    }
+
+    /*
+    This method stores the NDJSON or CSV stream and starts an import job for it, the job is returned while still QUEUED
+     */
+    public UserImportJob submit(InputStream input, String contentType, boolean sendVerificationEmails, String requestedBy) throws IOException {
+        boolean csv = isCsv(contentType);
+        log.info("Inside UserImportService - submit(): {}", csv ? CSV : NDJSON);
+
+        // TODO: The request ends when this method returns, so the body is spooled before the job starts
+        Path spool = spool(input);
+        UserImportJob job = userImportJobRepository.insert(UserImportJob.builder()
+                .requestedBy(requestedBy)
+                .contentType(csv ? CSV : NDJSON)
+                .sendVerificationEmails(sendVerificationEmails)
+                .status(UserImportJob.QUEUED)
+                .purgeAt(LocalDateTime.now().plus(retention))
+                .build());
+
+        // TODO: The emails are rendered in the admin's language, which is bound to the request thread
+        Locale locale = LocaleContextHolder.getLocale();
+        try {
+            importExecutor.execute(() -> run(job, spool, csv, locale));
+        } catch (RejectedExecutionException e) {
+            deleteSpool(spool);
+            userImportJobRepository.delete(job);
+            throw new TooManyRequestsException("Too many imports in progress, please try again later");
+        }
+        return job;
+    }
+
+    /*
+    This method returns the current state of an import job
+     */
+    public UserImportJob getJob(String jobId) {
+        return userImportJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+    }
+
+    private void run(UserImportJob job, Path spool, boolean csv, Locale locale) {
+        LocaleContextHolder.setLocale(locale);
+        UserImportResult result = job.getResult();
+        Update finished;
+        try (InputStream input = Files.newInputStream(spool)) {
+            LocalDateTime startedAt = LocalDateTime.now();
+            mongoTemplate.updateFirst(byId(job.getId()),
+                    new Update().set("status", UserImportJob.RUNNING).set("startedAt", startedAt).set("updatedAt", startedAt),
+                    UserImportJob.class);
+            importUsers(input, csv, Boolean.TRUE.equals(job.getSendVerificationEmails()), result,
+                    progress -> saveProgress(job.getId(), progress));
+            finished = new Update().set("status", UserImportJob.COMPLETED);
+        } catch (Exception e) {
+            log.error("Import job {} failed after {} rows", job.getId(), result.getReceived(), e);
+            finished = new Update().set("status", UserImportJob.FAILED).set("error", String.valueOf(e.getMessage()));
+        } finally {
+            LocaleContextHolder.resetLocaleContext();
+            deleteSpool(spool);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            mongoTemplate.updateFirst(byId(job.getId()),
+                    finished.set("result", result).set("finishedAt", now).set("updatedAt", now).set("purgeAt", now.plus(retention)),
+                    UserImportJob.class);
+        } catch (DataAccessException e) {
+            log.error("Could not save the outcome of import job {}: {} of {} users imported",
+                    job.getId(), result.getImported(), result.getReceived(), e);
+        }
+    }
+
+    /*
+    This method imports the users of an NDJSON or CSV stream into the given result
+    progress is called after every batch with the result so far
+     */
+    void importUsers(InputStream input, boolean csv, boolean sendVerificationEmails, UserImportResult result,
+                     Consumer<UserImportResult> progress) throws IOException {
+        List<Row> batch = new ArrayList<>(batchSize);
+        List<PendingEmail> pendingEmails = new ArrayList<>();
+        Map<String, Integer> columns = null;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                // TODO: The first CSV line names the columns
+                if (csv && columns == null) {
+                    columns = parseHeader(line);
+                    continue;
+                }
+
+                result.setReceived(result.getReceived() + 1);
+                RegisterRequest request;
+                try {
+                    request = csv ? parseCsvRow(line, columns) : objectMapper.readValue(line, RegisterRequest.class);
+                } catch (JacksonException | IllegalArgumentException e) {
+                    result.setInvalid(result.getInvalid() + 1);
+                    addError(result, lineNumber, null, "Malformed row");
+                    continue;
+                }
+
+                Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(request);
+                if (!violations.isEmpty()) {
+                    result.setInvalid(result.getInvalid() + 1);
+                    addError(result, lineNumber, request.getEmail(), violations.iterator().next().getMessage());
+                    continue;
+                }
+
+                batch.add(new Row(lineNumber, request));
+                if (batch.size() >= batchSize) {
+                    insertBatch(batch, result, sendVerificationEmails, pendingEmails);
+                    batch.clear();
+                    progress.accept(result);
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Import interrupted by shutdown");
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, result, sendVerificationEmails, pendingEmails);
+        }
+        queuePendingEmails(pendingEmails, result);
+
+        log.info("Imported {} of {} users ({} conflicts, {} invalid, {} failed)", result.getImported(),
+                result.getReceived(), result.getConflicts(), result.getInvalid(), result.getFailed());
+    }
+
+    private void insertBatch(List<Row> batch, UserImportResult result, boolean sendVerificationEmails,
+                             List<PendingEmail> pendingEmails) {
+        List<User> users = new ArrayList<>(batch.size());
+        try {
+            // TODO: Hash all passwords of the batch in parallel
+            List<String> hashes = passwordHashingService.encodeAll(batch.stream().map(row -> row.request().getPassword()).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                users.add(toDocument(batch.get(i).request(), hashes.get(i)));
+            }
+        } catch (RuntimeException e) {
+            // Nothing was written yet
+            log.warn("Could not hash a batch of {} imported users: {}", batch.size(), e.getMessage());
+            for (Row row : batch) {
+                result.setFailed(result.getFailed() + 1);
+                addError(result, row.line(), row.request().getEmail(), "Import failed: " + e.getMessage());
+            }
+            return;
+        }
+
+        // TODO: Insert the batch unordered, a rejected row does not stop the others
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(users).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                Row row = batch.get(error.getIndex());
+                rejected.add(error.getIndex());
+                if (error.getCode() == DUPLICATE_KEY) {
+                    result.setConflicts(result.getConflicts() + 1);
+                    addError(result, row.line(), row.request().getEmail(), "User already exists with this email");
+                } else {
+                    result.setFailed(result.getFailed() + 1);
+                    addError(result, row.line(), row.request().getEmail(), error.getMessage());
+                }
+            }
+        } catch (DataAccessException e) {
+            // The bulk write failed as a whole (e.g. the connection was lost), some rows may have been written
+            log.warn("Bulk insert of {} imported users failed: {}", users.size(), e.getMessage());
+            rejected.addAll(reportNotInserted(batch, users, result, e));
+        }
+
+        // TODO: Queue the verification emails of the inserted users with one bulk insert
+        List<Row> importedRows = new ArrayList<>();
+        List<User> importedUsers = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (rejected.contains(i)) {
+                continue;
+            }
+            result.setImported(result.getImported() + 1);
+            importedRows.add(batch.get(i));
+            importedUsers.add(users.get(i));
+        }
+        if (!sendVerificationEmails || importedUsers.isEmpty()) {
+            return;
+        }
+        try {
+            emailOutboxService.enqueueAll(importedUsers.stream().map(verificationEmailComposer::compose).toList());
+            result.setEmailsQueued(result.getEmailsQueued() + importedUsers.size());
+        } catch (RuntimeException e) {
+            // The users exist, remember them so their emails are queued at the end of the import
+            log.warn("Could not queue the verification emails of {} imported users, retrying at the end: {}",
+                    importedUsers.size(), e.getMessage());
+            for (int i = 0; i < importedUsers.size(); i++) {
+                pendingEmails.add(new PendingEmail(importedRows.get(i).line(),
+                        importedUsers.get(i).getEmail(), importedUsers.get(i).getId()));
+            }
+        }
+    }
+
+    /*
+    This method looks up which users of a failed bulk insert exist, the ids were assigned up front
+    Returns the indexes of the rows that were not inserted, they are reported as failed
+     */
+    private Set<Integer> reportNotInserted(List<Row> batch, List<User> users, UserImportResult result, DataAccessException cause) {
+        Set<String> inserted;
+        String reason;
+        try {
+            Query query = Query.query(Criteria.where("_id").in(users.stream().map(User::getId).toList()));
+            query.fields().include("_id");
+            inserted = mongoTemplate.find(query, User.class).stream().map(User::getId).collect(Collectors.toSet());
+            reason = "Insert failed: " + cause.getMessage();
+        } catch (DataAccessException e) {
+            inserted = Set.of();
+            reason = "Insert failed, the row may have been imported: " + cause.getMessage();
+        }
+
+        Set<Integer> notInserted = new HashSet<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (!inserted.contains(users.get(i).getId())) {
+                notInserted.add(i);
+                result.setFailed(result.getFailed() + 1);
+                addError(result, batch.get(i).line(), batch.get(i).request().getEmail(), reason);
+            }
+        }
+        return notInserted;
+    }
+
+    /*
+    This method retries the verification emails that could not be queued with their batch
+    The users are read back so the emails carry their stored verification token
+     */
+    private void queuePendingEmails(List<PendingEmail> pendingEmails, UserImportResult result) {
+        for (int from = 0; from < pendingEmails.size(); from += batchSize) {
+            List<PendingEmail> slice = pendingEmails.subList(from, Math.min(pendingEmails.size(), from + batchSize));
+            try {
+                List<User> users = mongoTemplate.find(
+                        Query.query(Criteria.where("_id").in(slice.stream().map(PendingEmail::userId).toList())), User.class);
+                emailOutboxService.enqueueAll(users.stream().map(verificationEmailComposer::compose).toList());
+                result.setEmailsQueued(result.getEmailsQueued() + users.size());
+            } catch (RuntimeException e) {
+                log.warn("Could not queue {} verification emails of imported users: {}", slice.size(), e.getMessage());
+                for (PendingEmail pending : slice) {
+                    result.setEmailsNotQueued(result.getEmailsNotQueued() + 1);
+                    addError(result, pending.line(), pending.email(),
+                            "Imported, but the verification email could not be queued, use resend-verification");
+                }
+            }
+        }
+    }
+
+    private void saveProgress(String jobId, UserImportResult result) {
+        try {
+            mongoTemplate.updateFirst(byId(jobId),
+                    new Update().set("result", result).set("updatedAt", LocalDateTime.now()), UserImportJob.class);
+        } catch (DataAccessException e) {
+            // Only the progress report is behind, the import itself goes on
+            log.warn("Could not save the progress of import job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private Path spool(InputStream input) throws IOException {
+        Path spool = Files.createTempFile("user-import-", ".tmp");
+        try (OutputStream output = Files.newOutputStream(spool)) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                total += read;
+                if (total > maxSize.toBytes()) {
+                    throw new BadRequestException("Import must not be larger than " + maxSize.toMegabytes() + " MB");
+                }
+                output.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteSpool(spool);
+            throw e;
+        }
+        return spool;
+    }
+
+    private static void deleteSpool(Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}: {}", spool, e.getMessage());
+        }
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+
+    // Same document as a registration, the id is assigned up front so the inserted users are known without reading them back
+    private User toDocument(RegisterRequest request, String passwordHash) {
+        LocalDateTime now = LocalDateTime.now();
+        String id = new ObjectId().toHexString();
+        Instant expiresAt = Instant.now().plus(VERIFICATION_VALIDITY);
+        return User.builder()
+                .id(id)
+                .name(request.getName())
+                .email(request.getEmail())
+                .password(passwordHash)
+                .profileImageUrl(request.getProfileImageUrl())
+                .subscriptionPlan("Basic")
+                .emailVerified(false)
+                .verificationToken(verificationTokenUtil.generate(id, expiresAt))
+                .verificationExpires(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private void addError(UserImportResult result, int line, String email, String reason) {
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new UserImportResult.RowError(line, email, reason));
+        }
+    }
+
+    private static boolean isCsv(String contentType) {
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(CSV)) {
+            return true;
+        }
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(NDJSON)) {
+            return false;
+        }
+        throw new BadRequestException("Content-Type must be " + NDJSON + " or " + CSV);
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String required : List.of("email", "name", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new BadRequestException("CSV header must contain the column '" + required + "'");
+            }
+        }
+        return columns;
+    }
+
+    private static RegisterRequest parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        return RegisterRequest.builder()
+                .email(column(values, columns, "email"))
+                .name(column(values, columns, "name"))
+                .password(column(values, columns, "password"))
+                .profileImageUrl(column(values, columns, "profileImageUrl"))
+                .build();
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    // Splits one CSV line, fields may be quoted with "" to contain commas or escaped quotes
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
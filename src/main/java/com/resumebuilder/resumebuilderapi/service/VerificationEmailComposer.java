@@ -0,0 +1,43 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.resumebuilder.resumebuilderapi.document.EmailOutboxMessage;
+import com.resumebuilder.resumebuilderapi.document.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/*
+This class builds the verification email of a user from the 'verify-email' template
+It only builds the outbox message, the caller queues it (one at a time on registration, in bulk on import)
+ */
+@Component
+@RequiredArgsConstructor
+public class VerificationEmailComposer {
+
+    static final String SUBJECT = "Verify your email";
+
+    // TODO: Base URL from application.properties file to form the complete verification link
+    @Value("${app.base.url:http://localhost:8080/}")
+    private String appBaseUrl;
+
+    private final EmailTemplateEngine emailTemplateEngine;
+
+    /*
+    This method forms the verification link and renders the html and plain-text content
+    The user's name is html-escaped by the template engine
+     */
+    public EmailOutboxMessage compose(User user) {
+        String link = appBaseUrl + "api/auth/verify-email?token=" + user.getVerificationToken();
+
+        EmailTemplateEngine.RenderedEmail email = emailTemplateEngine.render("verify-email",
+                LocaleContextHolder.getLocale(),
+                Map.of("name", user.getName(), "link", link));
+
+        EmailOutboxMessage message = EmailOutboxService.newMessage(user.getEmail(), SUBJECT, email.html());
+        message.setTextContent(email.text());
+        return message;
+    }
+}
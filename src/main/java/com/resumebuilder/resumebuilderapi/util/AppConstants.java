@@ -11,4 +11,24 @@ public class AppConstants {
     public static final String UPLOAD_IMAGE = "/upload-image";
     public static final String LOGIN = "/login";
     public static final String RESEND_VERIFICATION = "/resend-verification";
+    public static final String REFRESH = "/refresh";
+    public static final String LOGOUT = "/logout";
+    public static final String LOGOUT_ALL = "/logout-all";
+    public static final String JWKS = "/.well-known/jwks.json";
+    public static final String ACTUATOR = "/actuator/**";
+    public static final String ADMIN_CONTROLLER = "/api/admin";
+    public static final String IMPORT_USERS = "/users/import";
+    public static final String IMPORT_USERS_JOB = "/users/import/{jobId}";
+
+    // Routes that need no authentication, shared by SecurityConfig and JwtAuthenticationFilter
+    public static final String[] PUBLIC_ROUTES = {
+            AUTH_CONTROLLER + REGISTER,
+            AUTH_CONTROLLER + LOGIN,
+            AUTH_CONTROLLER + VERIFY_EMAIL,
+            AUTH_CONTROLLER + UPLOAD_IMAGE,
+            AUTH_CONTROLLER + RESEND_VERIFICATION,
+            AUTH_CONTROLLER + REFRESH,
+            JWKS,
+            ACTUATOR
+    };
 }
\ No newline at end of file
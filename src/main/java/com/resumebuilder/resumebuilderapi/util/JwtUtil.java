@@ -1,14 +1,29 @@
 package com.resumebuilder.resumebuilderapi.util;
 
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.security.JwtKeyRing;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * JwtUtil is a utility class responsible for generating and validating JWT tokens.
@@ -21,8 +36,20 @@ import java.util.Date;
  *     <li>Extract the userId (subject) from a token</li>
  *     <li>Validate a token signature and format</li>
  *     <li>Check whether a token is expired</li>
+ *     <li>Verify a token once and return an immutable view of its claims</li>
  * </ul>
  *
+ * <p>The signing key and the JWT parser are built once at startup. Successful verifications
+ * are cached until the token expires, so repeated requests carrying the same token skip
+ * the signature check.</p>
+ *
+ * <p>With {@code jwt.signing.algorithm=ES256}, tokens are signed by the active key of the
+ * {@link JwtKeyRing} and carry its {@code kid}. Tokens without a {@code kid} are still
+ * verified with the HMAC secret until {@code jwt.legacy-hmac.accept-until}, so tokens issued
+ * before the switch keep working until they expire. By default that is one token lifetime
+ * after startup; set it to a past instant to reject HMAC tokens right away. An HMAC token
+ * that expires after the cut-off was not issued before the switch and is always rejected.</p>
+ *
  * <p>The JWT secret key and token expiration time are injected from
  * the application configuration file (application.properties or application.yml).</p>
  *
@@ -30,13 +57,31 @@ import java.util.Date;
  * <pre>
  * jwt.secret=yourSecretKey
  * jwt.expiration=86400000
+ * jwt.cache.max-size=10000
+ * jwt.stateless-principal.enabled=false
  * </pre>
  *
  * <p>This class uses the JJWT library to handle token creation and parsing.</p>
  */
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
+    /**
+     * Claim holding the user's email verification status.
+     */
+    public static final String CLAIM_EMAIL_VERIFIED = "ev";
+
+    /**
+     * Claim holding the user's subscription plan.
+     */
+    public static final String CLAIM_SUBSCRIPTION_PLAN = "plan";
+
+    /**
+     * Claim holding the user's token version at the time the token was issued.
+     */
+    public static final String CLAIM_TOKEN_VERSION = "tv";
+
     /**
      * Secret key used to sign and verify JWT tokens.
      *
@@ -54,14 +99,163 @@ public class JwtUtil {
     private Long jwtExpiration;
 
     /**
-     * Generates and returns the signing key used to sign JWT tokens.
+     * Maximum number of verified tokens kept in memory.
+     *
+     * <p>This value is loaded from application properties using the key {@code jwt.cache.max-size}.
+     * A value of 0 disables the cache.</p>
+     */
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    /**
+     * Whether the authentication filter should build the principal from the token claims
+     * instead of loading the user from the database.
+     *
+     * <p>This value is loaded from application properties using the key
+     * {@code jwt.stateless-principal.enabled}.</p>
+     */
+    @Value("${jwt.stateless-principal.enabled:false}")
+    private boolean statelessPrincipalEnabled;
+
+    /**
+     * Instant (ISO-8601, e.g. {@code 2026-11-01T00:00:00Z}) after which HMAC-signed tokens are
+     * rejected in ES256 mode.
+     *
+     * <p>This value is loaded from application properties using the key
+     * {@code jwt.legacy-hmac.accept-until}. When empty, it is one token lifetime after startup.</p>
+     */
+    @Value("${jwt.legacy-hmac.accept-until:}")
+    private String legacyHmacAcceptUntil;
+
+    /**
+     * Parsed {@link #legacyHmacAcceptUntil}.
+     */
+    private Instant legacyHmacCutoff;
+
+    /**
+     * Asymmetric signing and verification keys indexed by key id.
+     */
+    private final JwtKeyRing keyRing;
+
+    /**
+     * Signing key built once from {@link #jwtSecret}.
+     */
+    private Key signingKey;
+
+    /**
+     * Thread-safe parser that picks the verification key from the token's {@code kid} header.
+     */
+    private JwtParser jwtParser;
+
+    /**
+     * Cache of tokens that already passed signature verification.
+     */
+    private VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * Builds the signing key, the parser and the verified-token cache once the properties are injected.
+     */
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.legacyHmacCutoff = legacyHmacAcceptUntil.isBlank()
+                ? Instant.now().plusMillis(jwtExpiration)
+                : Instant.parse(legacyHmacAcceptUntil.trim());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveVerificationKey(header.getKeyId(), claims.getExpiration());
+                    }
+                })
+                .build();
+        this.verifiedTokenCache = new VerifiedTokenCache(cacheMaxSize);
+    }
+
+    /**
+     * Returns the signing key used to sign JWT tokens.
      *
-     * <p>This method converts the configured secret string into a secure HMAC SHA key.</p>
+     * <p>The key is derived from the configured secret string once at startup.</p>
      *
      * @return the signing key used for JWT signature
      */
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
+    }
+
+    /**
+     * Returns the key that verifies a token signed with the given key id.
+     *
+     * @param kid        the key id from the token header, or null for HMAC-signed tokens
+     * @param expiration the token's expiry time
+     * @return the verification key
+     * @throws JwtException if the key id is unknown, or an HMAC token is no longer accepted
+     */
+    private Key resolveVerificationKey(String kid, Date expiration) {
+        if (kid == null) {
+            if (keyRing.isAsymmetric() && !acceptsLegacyHmac(expiration)) {
+                throw new JwtException("HMAC-signed tokens are no longer accepted");
+            }
+            return signingKey;
+        }
+        Key key = keyRing.verificationKey(kid);
+        if (key == null) {
+            throw new JwtException("Unknown signing key id: " + kid);
+        }
+        return key;
+    }
+
+    /**
+     * Returns whether an HMAC-signed token may still be verified in ES256 mode.
+     *
+     * <p>Tokens issued with the secret before the switch expire before the cut-off, so a later
+     * expiry means the token was minted afterwards. Verified tokens are cached only until they
+     * expire, so no HMAC token outlives the cut-off in the cache either.</p>
+     *
+     * @param expiration the token's expiry time
+     * @return true before the cut-off for tokens expiring by then
+     */
+    private boolean acceptsLegacyHmac(Date expiration) {
+        return Instant.now().isBefore(legacyHmacCutoff)
+                && expiration != null
+                && !expiration.toInstant().isAfter(legacyHmacCutoff);
+    }
+
+    /**
+     * Returns how long access tokens are valid after they are issued.
+     *
+     * @return the access token validity
+     */
+    public Duration getAccessTokenValidity() {
+        return Duration.ofMillis(jwtExpiration);
+    }
+
+    /**
+     * Returns whether principals should be built from token claims without database access.
+     *
+     * @return true if stateless principal mode is enabled
+     */
+    public boolean isStatelessPrincipalEnabled() {
+        return statelessPrincipalEnabled;
+    }
+
+    /**
+     * Generates a JWT token for the given user.
+     *
+     * <p>In addition to the subject, the token carries a snapshot of the fields needed for
+     * authorization: email verification status, subscription plan and token version.
+     * These claims let the authentication filter build the principal without a database
+     * lookup, and let a bump of {@link User#getTokenVersion()} reject older tokens.</p>
+     *
+     * @param user the user the token is issued for
+     * @return a signed JWT token as a String
+     */
+    public String genrateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_EMAIL_VERIFIED, Boolean.TRUE.equals(user.getEmailVerified()));
+        claims.put(CLAIM_SUBSCRIPTION_PLAN, user.getSubscriptionPlan());
+        claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion() != null ? user.getTokenVersion() : 0L);
+        return buildToken(user.getId(), claims);
     }
 
     /**
@@ -70,73 +264,102 @@ public class JwtUtil {
      * <p>The generated token contains:</p>
      * <ul>
      *     <li>Subject: userId</li>
+     *     <li>Token id (jti): a random UUID used to revoke the token</li>
      *     <li>Issued time: current date/time</li>
      *     <li>Expiration time: based on configured expiration value</li>
      * </ul>
      *
-     * <p>The token is signed using the secret signing key.</p>
+     * <p>The token is signed using the secret signing key, or the active key of the
+     * key ring when ES256 signing is enabled.</p>
      *
      * @param userId the unique user ID that will be stored in the token subject
      * @return a signed JWT token as a String
      */
     public String genrateToken(String userId) {
+        return buildToken(userId, Map.of());
+    }
+
+    private String buildToken(String userId, Map<String, Object> claims) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .addClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userId)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .setExpiration(expiryDate);
+
+        if (keyRing.isAsymmetric()) {
+            JwtKeyRing.SigningKey activeKey = keyRing.signingKey();
+            builder.setHeaderParam(JwsHeader.KEY_ID, activeKey.kid())
+                    .signWith(activeKey.privateKey(), SignatureAlgorithm.ES256);
+        } else {
+            builder.signWith(getSigningKey());
+        }
+        return builder.compact();
 
     }
 
     /**
-     * Extracts the userId (subject) from the provided JWT token.
+     * Verifies the token signature and expiration and returns its claims.
      *
-     * <p>This method parses the token using the signing key and retrieves
-     * the subject field which stores the userId.</p>
+     * <p>The token is parsed only once. A successful result is cached until the token
+     * expires, so later calls with the same token return without verifying the signature again.</p>
+     *
+     * @param token the JWT token to verify
+     * @return the verified token, or an empty Optional if the token is invalid or expired
+     */
+    public Optional<VerifiedToken> verifyToken(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        VerifiedToken cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            VerifiedToken verified = new VerifiedToken(
+                    claims.getSubject(),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                    claims);
+            verifiedTokenCache.put(token, verified);
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Extracts the userId (subject) from the provided JWT token.
      *
      * @param token the JWT token from which the userId should be extracted
      * @return the userId stored inside the token
      * @throws JwtException if the token is invalid or cannot be parsed
      */
     public String generateUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+        return verifyToken(token)
+                .map(VerifiedToken::userId)
+                .orElseThrow(() -> new JwtException("Token is not valid"));
     }
 
     /**
      * Validates the JWT token by checking its signature and format.
      *
-     * <p>This method does not directly check expiration, it only verifies whether
-     * the token can be parsed successfully using the signing key.</p>
-     *
      * @param token the JWT token to validate
      * @return true if the token is valid, otherwise false
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .setSigningKey(getSigningKey())
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verifyToken(token).isPresent();
     }
 
     /**
      * Checks whether the JWT token is expired or not.
      *
-     * <p>This method extracts the expiration date from the token and compares it
-     * with the current system time.</p>
-     *
      * <p>If the token is invalid or cannot be parsed, the method assumes the token
      * is expired and returns true.</p>
      *
@@ -144,15 +367,8 @@ public class JwtUtil {
      * @return true if the token is expired or invalid, otherwise false
      */
     public boolean isTokenExpired(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .setSigningKey(getSigningKey())
-                    .parseClaimsJws(token)
-                    .getBody();
-
-            return claims.getExpiration().before(new Date());
-        } catch (JwtException | IllegalArgumentException e) {
-            return true;
-        }
+        return verifyToken(token)
+                .map(verified -> verified.isExpiredAt(Instant.now()))
+                .orElse(true);
     }
-}
\ No newline at end of file
+}
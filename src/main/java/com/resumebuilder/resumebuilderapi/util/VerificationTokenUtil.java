@@ -0,0 +1,171 @@
+package com.resumebuilder.resumebuilderapi.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * VerificationTokenUtil creates and checks the tokens of the email verification links.
+ *
+ * <p>A token is self-describing and signed:</p>
+ * <pre>
+ * &lt;userId&gt;.&lt;expiry epoch seconds&gt;.&lt;nonce&gt;.&lt;HMAC-SHA256 signature&gt;
+ * </pre>
+ *
+ * <p>Forged, truncated and expired tokens are rejected by {@link #parse(String)} without any
+ * database access, so link-scanning traffic never reaches MongoDB. A token with a valid
+ * signature is then checked against the user found by its id, which is still required so
+ * that a newer link (resend) or a completed verification invalidates older links.</p>
+ *
+ * <p>The links are signed with their own secret, so a leak or rotation of the JWT secret
+ * does not affect them and the other way round:</p>
+ * <pre>
+ * app.verification.secret=yourVerificationSecret
+ * </pre>
+ *
+ * <p>When no secret is configured, a key is derived from the JWT secret as
+ * HMAC-SHA256(jwt.secret, "email-verification"). The derived key cannot be used to sign JWTs
+ * and the JWT secret cannot be recovered from it, but rotating the JWT secret then also
+ * invalidates the pending verification links.</p>
+ */
+@Component
+public class VerificationTokenUtil {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int NONCE_BYTES = 16;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private static final byte[] DERIVATION_LABEL = "email-verification".getBytes(StandardCharsets.UTF_8);
+
+    @Value("${app.verification.secret:}")
+    private String secret;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private SecretKeySpec key;
+
+    /**
+     * Mac instances are not thread safe and costly to look up, so each thread keeps its own.
+     */
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    /**
+     * The verified content of a verification token.
+     *
+     * @param userId    the id of the user the link was sent to
+     * @param expiresAt the time after which the link is no longer accepted
+     */
+    public record VerificationClaims(String userId, Instant expiresAt) {
+
+        /**
+         * Checks whether the link has passed its expiration time.
+         *
+         * @param now the instant to compare against
+         * @return true if the link is expired at {@code now}
+         */
+        public boolean isExpiredAt(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        key = secret != null && !secret.isBlank()
+                ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM)
+                : new SecretKeySpec(deriveKey(jwtSecret), ALGORITHM);
+    }
+
+    /**
+     * Derives the signing key from the JWT secret, with a label that separates it from any
+     * other use of that secret.
+     */
+    private static byte[] deriveKey(String jwtSecret) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return mac.doFinal(DERIVATION_LABEL);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive the verification link key", e);
+        }
+    }
+
+    /**
+     * Creates a signed verification token.
+     *
+     * @param userId    the id of the user, must not contain a dot
+     * @param expiresAt the expiry time of the link
+     * @return the URL-safe token
+     */
+    public String generate(String userId, Instant expiresAt) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        String payload = userId + "." + expiresAt.getEpochSecond() + "." + ENCODER.encodeToString(nonce);
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Checks the format and signature of a token and returns its content.
+     *
+     * <p>The expiry is returned rather than checked, so callers can tell an expired link
+     * from an invalid one.</p>
+     *
+     * @param token the token from the verification link
+     * @return the verified content, or empty if the token is malformed or the signature does not match
+     */
+    public Optional<VerificationClaims> parse(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int signatureStart = token.lastIndexOf('.');
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != 4 || parts[0].isEmpty()) {
+            return Optional.empty();
+        }
+
+        byte[] signature;
+        long expiresAt;
+        try {
+            signature = DECODER.decode(parts[3]);
+            expiresAt = Long.parseLong(parts[1]);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        // Constant-time comparison, so the signature cannot be guessed byte by byte
+        if (!MessageDigest.isEqual(sign(token.substring(0, signatureStart)), signature)) {
+            return Optional.empty();
+        }
+        return Optional.of(new VerificationClaims(parts[0], Instant.ofEpochSecond(expiresAt)));
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+        }
+    }
+}
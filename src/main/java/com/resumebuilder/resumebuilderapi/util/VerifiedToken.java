@@ -0,0 +1,76 @@
+package com.resumebuilder.resumebuilderapi.util;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * VerifiedToken is an immutable view of a JWT whose signature and expiry have already been checked.
+ *
+ * <p>It is returned by {@link JwtUtil#verifyToken(String)} so callers can read the subject
+ * and the other claims without parsing the token again.</p>
+ *
+ * @param userId    the subject of the token (the user's id)
+ * @param issuedAt  the time the token was issued
+ * @param expiresAt the time after which the token is no longer accepted
+ * @param claims    a read-only copy of all claims carried by the token
+ */
+public record VerifiedToken(String userId, Instant issuedAt, Instant expiresAt, Map<String, Object> claims) {
+
+    public VerifiedToken {
+        claims = Collections.unmodifiableMap(new LinkedHashMap<>(claims));
+    }
+
+    /**
+     * Checks whether the token has passed its expiration time.
+     *
+     * @param now the instant to compare against
+     * @return true if the token is expired at {@code now}
+     */
+    public boolean isExpiredAt(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+
+    /**
+     * Returns the unique id of the token ({@code jti} claim), used for revocation.
+     *
+     * @return the token id, or null for tokens issued without one
+     */
+    public String tokenId() {
+        return stringClaim("jti");
+    }
+
+    /**
+     * Reads a boolean claim.
+     *
+     * @param name the claim name
+     * @return the claim value, or null if the claim is absent
+     */
+    public Boolean booleanClaim(String name) {
+        Object value = claims.get(name);
+        return value instanceof Boolean b ? b : value != null ? Boolean.valueOf(value.toString()) : null;
+    }
+
+    /**
+     * Reads a string claim.
+     *
+     * @param name the claim name
+     * @return the claim value, or null if the claim is absent
+     */
+    public String stringClaim(String name) {
+        Object value = claims.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Reads a numeric claim as a long.
+     *
+     * @param name the claim name
+     * @return the claim value, or null if the claim is absent
+     */
+    public Long longClaim(String name) {
+        Object value = claims.get(name);
+        return value instanceof Number n ? Long.valueOf(n.longValue()) : value != null ? Long.valueOf(value.toString()) : null;
+    }
+}
@@ -0,0 +1,98 @@
+package com.resumebuilder.resumebuilderapi.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * VerifiedTokenCache keeps the result of successful JWT verifications in memory.
+ *
+ * <p>Entries are keyed by the SHA-256 digest of the token, so the raw tokens are never
+ * stored. An entry is dropped as soon as the token reaches its {@code exp} time, and the
+ * cache never grows beyond the configured maximum size.</p>
+ *
+ * <p>This class is used internally by {@link JwtUtil}.</p>
+ */
+class VerifiedTokenCache {
+
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached verification result for the token if it is still valid.
+     *
+     * @param token the raw JWT token
+     * @return the cached token, or null if it is not cached or already expired
+     */
+    VerifiedToken get(String token) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        String key = digest(token);
+        VerifiedToken cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.isExpiredAt(Instant.now())) {
+            entries.remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Stores a verified token until its expiration time.
+     *
+     * <p>When the cache is full, expired entries are removed first and, if that is not
+     * enough, an arbitrary entry is evicted to make room.</p>
+     *
+     * @param token    the raw JWT token
+     * @param verified the verification result for the token
+     */
+    void put(String token, VerifiedToken verified) {
+        if (maxSize <= 0 || verified.expiresAt() == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(digest(token), verified);
+    }
+
+    /**
+     * Removes all cached entries.
+     */
+    void clear() {
+        entries.clear();
+    }
+
+    private void evict() {
+        Instant now = Instant.now();
+        entries.values().removeIf(entry -> entry.isExpiredAt(now));
+
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
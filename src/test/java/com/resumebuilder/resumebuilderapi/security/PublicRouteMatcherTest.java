@@ -0,0 +1,58 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import com.resumebuilder.resumebuilderapi.util.AppConstants;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class PublicRouteMatcherTest {
+
+    private final PublicRouteMatcher matcher = new PublicRouteMatcher("/api/auth/login", "/api/auth/register", "/actuator/**");
+
+    @Test
+    void exactRoutesMatchOnlyThemselves() {
+        assertThat(matcher.matches("/api/auth/login")).isTrue();
+        assertThat(matcher.matches("/api/auth/register")).isTrue();
+
+        assertThat(matcher.matches("/api/auth/login/")).isFalse();
+        assertThat(matcher.matches("/api/auth/login/extra")).isFalse();
+        assertThat(matcher.matches("/api/auth/log")).isFalse();
+        assertThat(matcher.matches("/api/auth")).isFalse();
+        assertThat(matcher.matches("/api/resumes")).isFalse();
+    }
+
+    @Test
+    void prefixRouteMatchesItsBaseAndEveryPathBelowIt() {
+        assertThat(matcher.matches("/actuator")).isTrue();
+        assertThat(matcher.matches("/actuator/")).isTrue();
+        assertThat(matcher.matches("/actuator/health")).isTrue();
+        assertThat(matcher.matches("/actuator/health/liveness")).isTrue();
+    }
+
+    @Test
+    void prefixRouteDoesNotMatchSiblingsSharingItsName() {
+        assertThat(matcher.matches("/actuatorX")).isFalse();
+        assertThat(matcher.matches("/actuator-admin/health")).isFalse();
+        assertThat(matcher.matches("/api/actuator/health")).isFalse();
+    }
+
+    @Test
+    void unsupportedWildcardsAreRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new PublicRouteMatcher("/api/*"));
+        assertThatIllegalArgumentException().isThrownBy(() -> new PublicRouteMatcher("/api/**/login"));
+        assertThatIllegalArgumentException().isThrownBy(() -> new PublicRouteMatcher("/api/*/login"));
+        assertThatIllegalArgumentException().isThrownBy(() -> new PublicRouteMatcher("/api/*/**"));
+        assertThatIllegalArgumentException().isThrownBy(() -> new PublicRouteMatcher("/api/**/**"));
+    }
+
+    @Test
+    void applicationRouteTableCompiles() {
+        PublicRouteMatcher publicRoutes = new PublicRouteMatcher(AppConstants.PUBLIC_ROUTES);
+
+        for (String route : AppConstants.PUBLIC_ROUTES) {
+            assertThat(publicRoutes.matches(route.replace("/**", ""))).as(route).isTrue();
+        }
+        assertThat(publicRoutes.matches("/api/resumes")).isFalse();
+    }
+}
@@ -0,0 +1,135 @@
+package com.resumebuilder.resumebuilderapi.security;
+
+import com.resumebuilder.resumebuilderapi.config.ReadinessGate;
+import com.resumebuilder.resumebuilderapi.document.RevokedToken;
+import com.resumebuilder.resumebuilderapi.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private RevokedTokenRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReadinessGate readinessGate;
+
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RevokedTokenRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        readinessGate = new ReadinessGate(event -> { });
+        service = new TokenRevocationService(repository, readinessGate, meterRegistry, 1_000, 0.001);
+        when(repository.findByRevokedAtAfter(any())).thenReturn(List.of());
+    }
+
+    @Test
+    void checksTheDatabaseUntilTheFilterIsBuilt() {
+        when(repository.existsById("revoked-before-start")).thenReturn(true);
+
+        assertThat(service.isRevoked("revoked-before-start")).isTrue();
+        assertThat(service.isRevoked("valid")).isFalse();
+
+        // The placeholder filter is empty, a "not revoked" answer from it would be wrong
+        verify(repository).existsById("revoked-before-start");
+        verify(repository).existsById("valid");
+        assertThat(readinessGate.isOpen()).isFalse();
+    }
+
+    @Test
+    void keepsCheckingTheDatabaseWhenTheFirstBuildFails() {
+        when(repository.count()).thenThrow(new DataAccessResourceFailureException("database down"));
+        when(repository.existsById("revoked")).thenReturn(true);
+
+        service.initialize();
+
+        assertThat(service.isRevoked("revoked")).isTrue();
+        verify(repository).existsById("revoked");
+        assertThat(readinessGate.isOpen()).isFalse();
+    }
+
+    @Test
+    void answersFilterMissesWithoutTheDatabase() {
+        build("revoked");
+
+        assertThat(service.isRevoked("valid")).isFalse();
+
+        verify(repository, never()).existsById(anyString());
+        assertThat(meterRegistry.counter("security.revocation.filter.misses").count()).isEqualTo(1);
+        assertThat(readinessGate.isOpen()).isTrue();
+    }
+
+    @Test
+    void confirmsFilterHitsWithTheDatabase() {
+        build("revoked");
+        when(repository.existsById("revoked")).thenReturn(true);
+
+        assertThat(service.isRevoked("revoked")).isTrue();
+
+        verify(repository).existsById("revoked");
+        assertThat(meterRegistry.counter("security.revocation.revoked").count()).isEqualTo(1);
+    }
+
+    @Test
+    void filterHitNotConfirmedByTheDatabaseIsNotRevoked() {
+        // The entry expired in the database after the filter was built
+        build("expired");
+        when(repository.existsById("expired")).thenReturn(false);
+
+        assertThat(service.isRevoked("expired")).isFalse();
+
+        assertThat(meterRegistry.counter("security.revocation.filter.false-positives").count()).isEqualTo(1);
+    }
+
+    @Test
+    void revokedTokenIsAddedToTheFilterAndStored() {
+        build();
+
+        service.revoke("logged-out", "user-1", Instant.now().plusSeconds(600));
+        when(repository.existsById("logged-out")).thenReturn(true);
+
+        assertThat(service.isRevoked("logged-out")).isTrue();
+        verify(repository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void revokedTokenVersionIsFoundForThatVersionOnly() {
+        build();
+
+        service.revokeTokenVersion("user-1", 3, Instant.now().plusSeconds(600));
+        when(repository.existsById("tv:user-1:3")).thenReturn(true);
+
+        assertThat(service.isTokenVersionRevoked("user-1", 3)).isTrue();
+        assertThat(service.isTokenVersionRevoked("user-1", 4)).isFalse();
+    }
+
+    @Test
+    void tokensWithoutIdAreNeverRevoked() {
+        assertThat(service.isRevoked(null)).isFalse();
+        verify(repository, never()).existsById(any());
+    }
+
+    private void build(String... revokedIds) {
+        when(repository.count()).thenReturn((long) revokedIds.length);
+        when(repository.findByExpiresAtAfter(any(LocalDateTime.class))).thenReturn(Stream.of(revokedIds)
+                .map(id -> RevokedToken.builder().id(id).expiresAt(LocalDateTime.now().plusMinutes(10)).build()));
+        service.initialize();
+    }
+}
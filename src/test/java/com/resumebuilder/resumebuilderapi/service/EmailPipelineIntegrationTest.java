@@ -0,0 +1,165 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.resumebuilder.resumebuilderapi.document.EmailOutboxMessage;
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.dto.RegisterRequest;
+import com.resumebuilder.resumebuilderapi.repository.EmailOutboxRepository;
+import com.resumebuilder.resumebuilderapi.repository.UserRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mongodb.MongoDBContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/*
+End-to-end tests of the verification mail pipeline: AuthService queues the email in the outbox collection,
+EmailOutboxWorker claims it on its schedule and EmailService delivers it over SMTP
+MongoDB runs in Docker (the tests are skipped without Docker) and GreenMail stands in for the mail server on the port
+the localmail profile points spring.mail.* at
+The worker polls every 200ms and retries after 1s, so a retry is observed within a few seconds
+ */
+@SpringBootTest(properties = {
+        "spring.data.mongodb.database=resumebuilder-test",
+        "jwt.secret=integration-test-secret-integration-test-secret-0123456789",
+        "jwt.expiration=3600000",
+        "cloudinary.cloud-name=test",
+        "cloudinary.api-key=test",
+        "cloudinary.api-secret=test",
+        "app.base.url=http://localhost:8080/",
+        "security.password.bcrypt.strength=4",
+        "app.mail.outbox.poll-interval=PT0.2S",
+        "app.mail.outbox.initial-backoff=1s",
+        "app.verification.resend-cooldown=0s"
+})
+@ActiveProfiles("localmail")
+@Testcontainers(disabledWithoutDocker = true)
+class EmailPipelineIntegrationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Pattern VERIFY_LINK = Pattern.compile("verify-email\\?token=([A-Za-z0-9_\\-.]+)");
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    @RegisterExtension
+    static final GreenMailExtension SMTP = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", MONGO::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @BeforeEach
+    void clearCollections() {
+        emailOutboxRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void registrationEmailIsQueuedAndDelivered() throws Exception {
+        authService.register(new RegisterRequest("student@example.com", "Student", "password-1", null));
+
+        // The email is in the outbox as soon as register() returns
+        assertThat(emailOutboxRepository.findAll())
+                .singleElement()
+                .satisfies(message -> assertThat(message.getTo()).isEqualTo("student@example.com"));
+
+        assertThat(SMTP.waitForIncomingEmail(TIMEOUT.toMillis(), 1)).isTrue();
+        MimeMessage received = SMTP.getReceivedMessages()[0];
+        assertThat(received.getAllRecipients()[0].toString()).isEqualTo("student@example.com");
+        assertThat(received.getSubject()).isEqualTo("Verify your email");
+        String raw = GreenMailUtil.getWholeMessage(received);
+        assertThat(raw).contains("text/plain", "text/html");
+
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(onlyOutboxMessage().getStatus())
+                .isEqualTo(EmailOutboxMessage.SENT));
+        assertThat(onlyOutboxMessage().getAttempts()).isEqualTo(1);
+
+        // The delivered link verifies the user
+        authService.verifyEmail(verificationToken(raw));
+        assertThat(userRepository.findByEmail("student@example.com"))
+                .get()
+                .extracting(User::getEmailVerified)
+                .isEqualTo(true);
+    }
+
+    @Test
+    void resendVerificationDeliversAnotherEmail() {
+        authService.register(new RegisterRequest("resend@example.com", "Student", "password-1", null));
+        assertThat(SMTP.waitForIncomingEmail(TIMEOUT.toMillis(), 1)).isTrue();
+
+        authService.resendVerification("resend@example.com");
+
+        assertThat(SMTP.waitForIncomingEmail(TIMEOUT.toMillis(), 2)).isTrue();
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(emailOutboxRepository.findAll())
+                .hasSize(2)
+                .allSatisfy(message -> assertThat(message.getStatus()).isEqualTo(EmailOutboxMessage.SENT)));
+    }
+
+    @Test
+    void failedDeliveryIsRetriedWhenTheMailServerIsBack() {
+        SMTP.stop();
+
+        authService.register(new RegisterRequest("retry@example.com", "Student", "password-1", null));
+
+        // The first attempt fails and the message goes back to PENDING with the error and a backoff
+        await().atMost(TIMEOUT).untilAsserted(() -> {
+            EmailOutboxMessage message = onlyOutboxMessage();
+            assertThat(message.getStatus()).isEqualTo(EmailOutboxMessage.PENDING);
+            assertThat(message.getAttempts()).isGreaterThanOrEqualTo(1);
+            assertThat(message.getLastError()).isNotBlank();
+        });
+
+        SMTP.start();
+
+        assertThat(SMTP.waitForIncomingEmail(TIMEOUT.toMillis(), 1)).isTrue();
+        await().atMost(TIMEOUT).untilAsserted(() -> {
+            EmailOutboxMessage message = onlyOutboxMessage();
+            assertThat(message.getStatus()).isEqualTo(EmailOutboxMessage.SENT);
+            assertThat(message.getAttempts()).isGreaterThanOrEqualTo(2);
+            assertThat(message.getLastError()).isNull();
+        });
+        assertThat(SMTP.getReceivedMessages()).hasSize(1);
+    }
+
+    private EmailOutboxMessage onlyOutboxMessage() {
+        List<EmailOutboxMessage> messages = emailOutboxRepository.findAll();
+        assertThat(messages).hasSize(1);
+        return messages.get(0);
+    }
+
+    private static String verificationToken(String rawMessage) {
+        // Quoted-printable soft line breaks would split the link
+        Matcher matcher = VERIFY_LINK.matcher(rawMessage.replace("=\r\n", "").replace("=3D", "="));
+        assertThat(matcher.find()).isTrue();
+        return matcher.group(1);
+    }
+}
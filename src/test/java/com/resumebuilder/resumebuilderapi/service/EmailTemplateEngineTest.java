@@ -0,0 +1,81 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/*
+The test-* templates live in src/test/resources/templates/email next to the application's own templates
+ */
+class EmailTemplateEngineTest {
+
+    private static final String HOSTILE_NAME = "<b>Tom & \"Jerry\"</b> O'Neil";
+
+    private final EmailTemplateEngine engine = new EmailTemplateEngine();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        engine.loadTemplates();
+    }
+
+    @Test
+    void valuesAreEscapedInHtmlAndInsertedAsIsInText() {
+        EmailTemplateEngine.RenderedEmail email = engine.render("test-greeting", Locale.ENGLISH,
+                Map.of("name", HOSTILE_NAME, "link", "https://example.com/verify?token=a&b"));
+
+        assertThat(email.html()).isEqualTo("<p>Hello &lt;b&gt;Tom &amp; &quot;Jerry&quot;&lt;/b&gt; O&#39;Neil, "
+                + "<a href=\"https://example.com/verify?token=a&amp;b\">verify</a></p>");
+        assertThat(email.text()).isEqualTo("Hello " + HOSTILE_NAME + ", open https://example.com/verify?token=a&b");
+    }
+
+    @Test
+    void localizedTemplateIsUsedWhenTheLanguageMatches() {
+        EmailTemplateEngine.RenderedEmail email = engine.render("test-greeting", Locale.forLanguageTag("hi-IN"),
+                Map.of("name", "Asha", "link", "https://example.com"));
+
+        assertThat(email.html()).isEqualTo("<p>Namaste Asha</p>");
+        // There is no test-greeting_hi.txt, the default plain-text alternative is used
+        assertThat(email.text()).isEqualTo("Hello Asha, open https://example.com");
+    }
+
+    @Test
+    void missingLanguageVariantFallsBackToTheDefaultTemplate() {
+        Map<String, String> variables = Map.of("name", "Asha", "link", "https://example.com");
+
+        assertThat(engine.render("test-greeting", Locale.FRENCH, variables).html()).startsWith("<p>Hello Asha");
+        assertThat(engine.render("test-greeting", Locale.ROOT, variables).html()).startsWith("<p>Hello Asha");
+        assertThat(engine.render("test-greeting", null, variables).html()).startsWith("<p>Hello Asha");
+    }
+
+    @Test
+    void templateWithoutPlainTextHasNoTextAlternative() {
+        EmailTemplateEngine.RenderedEmail email = engine.render("test-html-only", Locale.ENGLISH, Map.of("name", "Asha"));
+
+        assertThat(email.html()).isEqualTo("<p>Asha</p>");
+        assertThat(email.text()).isNull();
+    }
+
+    @Test
+    void verificationTemplateRendersBothParts() {
+        EmailTemplateEngine.RenderedEmail email = engine.render("verify-email", Locale.ENGLISH,
+                Map.of("name", "Asha", "link", "https://example.com/api/auth/verify-email?token=abc"));
+
+        assertThat(email.html()).contains("Hi Asha", "href='https://example.com/api/auth/verify-email?token=abc'");
+        assertThat(email.text()).contains("Hi Asha", "https://example.com/api/auth/verify-email?token=abc");
+    }
+
+    @Test
+    void unknownTemplateAndMissingValuesAreRejected() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> engine.render("no-such-template", Locale.ENGLISH, Map.of()));
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> engine.render("test-greeting", Locale.ENGLISH, Map.of("name", "Asha")))
+                .withMessageContaining("{{link}}");
+    }
+}
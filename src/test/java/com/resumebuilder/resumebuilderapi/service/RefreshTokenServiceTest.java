@@ -0,0 +1,118 @@
+package com.resumebuilder.resumebuilderapi.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.resumebuilder.resumebuilderapi.document.RefreshToken;
+import com.resumebuilder.resumebuilderapi.document.User;
+import com.resumebuilder.resumebuilderapi.exception.InvalidTokenException;
+import com.resumebuilder.resumebuilderapi.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mongodb.MongoDBContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+Refresh token rotation against a real MongoDB (Docker, skipped without it), so the atomic
+"mark as used" query, the expiry condition and the family deletes are exercised as they run in production
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshTokenServiceTest {
+
+    private static final long THIRTY_DAYS_MILLIS = 30L * 24 * 3600 * 1000;
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient mongoClient;
+
+    private static MongoTemplate mongoTemplate;
+
+    private static RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    private final User user = User.builder().id("user-1").tokenVersion(2L).build();
+
+    @BeforeAll
+    static void connect() {
+        mongoClient = MongoClients.create(MONGO.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "refresh-token-test");
+        refreshTokenRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(RefreshTokenRepository.class);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        mongoClient.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, mongoTemplate);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshExpiration", THIRTY_DAYS_MILLIS);
+    }
+
+    @Test
+    void rotationReturnsANewTokenOfTheSameUser() {
+        String first = refreshTokenService.issue(user);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+
+        assertThat(rotation.userId()).isEqualTo("user-1");
+        assertThat(rotation.tokenVersion()).isEqualTo(2L);
+        assertThat(rotation.refreshToken()).isNotEqualTo(first);
+        assertThat(refreshTokenService.rotate(rotation.refreshToken()).userId()).isEqualTo("user-1");
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeFamily() {
+        String first = refreshTokenService.issue(user);
+        String second = refreshTokenService.rotate(first).refreshToken();
+        String otherLogin = refreshTokenService.issue(user);
+
+        // The first token was already exchanged: it was stolen or replayed
+        assertThatThrownBy(() -> refreshTokenService.rotate(first)).isInstanceOf(InvalidTokenException.class);
+
+        // The legitimate holder of the newest token is logged out as well
+        assertThatThrownBy(() -> refreshTokenService.rotate(second)).isInstanceOf(InvalidTokenException.class);
+        assertThat(refreshTokenRepository.findAll())
+                .singleElement()
+                .extracting(RefreshToken::getUsed)
+                .isEqualTo(false);
+
+        // Other logins of the user are a different family and keep working
+        assertThat(refreshTokenService.rotate(otherLogin).userId()).isEqualTo("user-1");
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        ReflectionTestUtils.setField(refreshTokenService, "refreshExpiration", -1_000L);
+        String expired = refreshTokenService.issue(user);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(expired)).isInstanceOf(InvalidTokenException.class);
+
+        // Expiry is not reuse, the token is neither consumed nor does it revoke anything
+        assertThat(refreshTokenRepository.findAll())
+                .singleElement()
+                .extracting(RefreshToken::getUsed)
+                .isEqualTo(false);
+    }
+
+    @Test
+    void unknownTokenIsRejected() {
+        refreshTokenService.issue(user);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate("not-a-refresh-token"))
+                .isInstanceOf(InvalidTokenException.class);
+        assertThat(refreshTokenRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,123 @@
+package com.resumebuilder.resumebuilderapi.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerificationTokenUtilTest {
+
+    private static final String JWT_SECRET = "unit-test-jwt-secret-unit-test-jwt-secret-0123456789";
+
+    private static final String USER_ID = "65f1c0ffee0123456789abcd";
+
+    private final VerificationTokenUtil tokenUtil = tokenUtil("", JWT_SECRET);
+
+    @Test
+    void validTokenRoundTrips() {
+        Instant expiresAt = Instant.now().plus(24, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+
+        String token = tokenUtil.generate(USER_ID, expiresAt);
+
+        assertThat(token.split("\\.")).hasSize(4);
+        assertThat(tokenUtil.parse(token)).hasValueSatisfying(claims -> {
+            assertThat(claims.userId()).isEqualTo(USER_ID);
+            assertThat(claims.expiresAt()).isEqualTo(expiresAt);
+            assertThat(claims.isExpiredAt(Instant.now())).isFalse();
+        });
+    }
+
+    @Test
+    void everyTokenIsDifferent() {
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+
+        assertThat(tokenUtil.generate(USER_ID, expiresAt)).isNotEqualTo(tokenUtil.generate(USER_ID, expiresAt));
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        String[] parts = tokenUtil.generate(USER_ID, Instant.now().plus(1, ChronoUnit.HOURS)).split("\\.");
+        byte[] signature = Base64.getUrlDecoder().decode(parts[3]);
+        signature[0] ^= 1;
+        parts[3] = Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+
+        assertThat(tokenUtil.parse(String.join(".", parts))).isEmpty();
+    }
+
+    @Test
+    void tamperedUserIdIsRejected() {
+        String[] parts = tokenUtil.generate(USER_ID, Instant.now().plus(1, ChronoUnit.HOURS)).split("\\.");
+        parts[0] = "65f1c0ffee0123456789abce";
+
+        assertThat(tokenUtil.parse(String.join(".", parts))).isEmpty();
+    }
+
+    @Test
+    void extendedExpiryIsRejected() {
+        String[] parts = tokenUtil.generate(USER_ID, Instant.now().plus(1, ChronoUnit.HOURS)).split("\\.");
+        parts[1] = String.valueOf(Long.parseLong(parts[1]) + 365L * 24 * 3600);
+
+        assertThat(tokenUtil.parse(String.join(".", parts))).isEmpty();
+    }
+
+    @Test
+    void expiredTokenIsParsedButReportedAsExpired() {
+        String token = tokenUtil.generate(USER_ID, Instant.now().minus(1, ChronoUnit.MINUTES));
+
+        // The signature is valid, the caller tells an expired link from a forged one
+        assertThat(tokenUtil.parse(token)).hasValueSatisfying(claims ->
+                assertThat(claims.isExpiredAt(Instant.now())).isTrue());
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        String token = tokenUtil.generate(USER_ID, Instant.now().plus(1, ChronoUnit.HOURS));
+        String withoutSignature = token.substring(0, token.lastIndexOf('.'));
+
+        assertThat(tokenUtil.parse(null)).isEmpty();
+        assertThat(tokenUtil.parse("")).isEmpty();
+        assertThat(tokenUtil.parse(withoutSignature)).isEmpty();
+        assertThat(tokenUtil.parse(token + ".extra")).isEmpty();
+        assertThat(tokenUtil.parse("." + token.substring(token.indexOf('.') + 1))).isEmpty();
+        assertThat(tokenUtil.parse(token.replaceFirst("\\.\\d+\\.", ".not-a-number."))).isEmpty();
+        assertThat(tokenUtil.parse(withoutSignature + ".***")).isEmpty();
+    }
+
+    @Test
+    void derivedKeyIsNotTheJwtSecret() {
+        // Signed with the raw JWT secret as its key
+        VerificationTokenUtil rawJwtSecret = tokenUtil(JWT_SECRET, "other-jwt-secret");
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+
+        assertThat(rawJwtSecret.parse(tokenUtil.generate(USER_ID, expiresAt))).isEmpty();
+        assertThat(tokenUtil.parse(rawJwtSecret.generate(USER_ID, expiresAt))).isEmpty();
+    }
+
+    @Test
+    void derivedKeyIsStableForTheSameJwtSecret() {
+        VerificationTokenUtil otherNode = tokenUtil("", JWT_SECRET);
+
+        assertThat(otherNode.parse(tokenUtil.generate(USER_ID, Instant.now().plus(1, ChronoUnit.HOURS)))).isPresent();
+    }
+
+    @Test
+    void configuredSecretTakesPrecedenceOverTheJwtSecret() {
+        VerificationTokenUtil ownSecret = tokenUtil("dedicated-verification-secret-0123456789", JWT_SECRET);
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+
+        assertThat(tokenUtil.parse(ownSecret.generate(USER_ID, expiresAt))).isEmpty();
+        assertThat(ownSecret.parse(ownSecret.generate(USER_ID, expiresAt))).isPresent();
+    }
+
+    private static VerificationTokenUtil tokenUtil(String secret, String jwtSecret) {
+        VerificationTokenUtil tokenUtil = new VerificationTokenUtil();
+        ReflectionTestUtils.setField(tokenUtil, "secret", secret);
+        ReflectionTestUtils.setField(tokenUtil, "jwtSecret", jwtSecret);
+        tokenUtil.init();
+        return tokenUtil;
+    }
+}